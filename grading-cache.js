@@ -0,0 +1,196 @@
+/**
+ * Grading Cache
+ * Content-addressed cache for compiled submissions and grading results. Keys
+ * are SHA-256 hashes of the source files (name and content) plus the javac
+ * version, so a resubmitted submission maps to the same entry no matter who
+ * uploads it. Each file is hashed on its own, but compiled classes are cached
+ * for the whole set of files: javac's output for one file depends on the
+ * others it references, so a shared file (e.g. an identical
+ * TransactionHistory.java) is only reused when the rest of the submission
+ * matches too. Entries live in an in-memory LRU and in a disk tier under
+ * .grading-cache/ that survives restarts; the disk tier keeps the most
+ * recently used maxDiskEntries per kind.
+ */
+
+const { execFile } = require('child_process');
+const { promisify } = require('util');
+const crypto = require('crypto');
+const fs = require('fs');
+const path = require('path');
+
+const execFileAsync = promisify(execFile);
+
+// Entry kinds, each in its own disk subdirectory
+const COMPILE = 'compile';
+const RESULT = 'result';
+
+class GradingCache {
+    constructor(options = {}) {
+        this.dir = options.dir || path.join(__dirname, '.grading-cache');
+        this.maxEntries = options.maxEntries || 500;
+        this.maxDiskEntries = options.maxDiskEntries || 5000;
+        this.javacCommand = options.javacCommand || 'javac';
+        this.memory = new Map();
+        this.version = null;
+        this.writes = 0;
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Key for compiling the given sources, [{ name, source }], as one set; order does not matter.
+     * Not a per-file key: the classes compiled from a file can change with the files beside it.
+     */
+    async compileKey(files) {
+        const fileHashes = files
+            .map(file => `${file.name}:${sha256(file.source)}`)
+            .sort();
+        return sha256([await this.compilerVersion(), ...fileHashes].join('\n'));
+    }
+
+    /**
+     * Key for a grading result: the compile key plus everything else the grade depends on
+     */
+    resultKey(compileKey, ...inputs) {
+        return sha256([compileKey, ...inputs.map(input => String(input))].join('\n'));
+    }
+
+    /**
+     * Cached compile output { success, diagnostics, classes: [{ name, bytes }] }, or null
+     */
+    async getCompile(key) {
+        const entry = await this.get(COMPILE, key);
+        if (!entry) {
+            return null;
+        }
+        return {
+            success: entry.success,
+            diagnostics: entry.diagnostics,
+            classes: entry.classes.map(compiled => ({ name: compiled.name, bytes: Buffer.from(compiled.bytes, 'base64') }))
+        };
+    }
+
+    async setCompile(key, compiled) {
+        await this.set(COMPILE, key, {
+            success: compiled.success,
+            diagnostics: compiled.diagnostics,
+            classes: compiled.classes.map(entry => ({ name: entry.name, bytes: entry.bytes.toString('base64') }))
+        });
+    }
+
+    async getResult(key) {
+        return this.get(RESULT, key);
+    }
+
+    async setResult(key, result) {
+        await this.set(RESULT, key, result);
+    }
+
+    stats() {
+        return { entries: this.memory.size, hits: this.hits, misses: this.misses };
+    }
+
+    /**
+     * First line of `javac -version`, looked up once; compiled classes are only reused with the same compiler
+     */
+    async compilerVersion() {
+        if (!this.version) {
+            this.version = execFileAsync(this.javacCommand, ['-version'], { timeout: 10000 })
+                .then(({ stdout, stderr }) => (stdout || stderr).trim())
+                .catch(() => 'unknown');
+        }
+        return this.version;
+    }
+
+    async get(kind, key) {
+        const memoryKey = `${kind}:${key}`;
+        if (this.memory.has(memoryKey)) {
+            // Re-insert so the Map's insertion order stays least recently used first
+            const value = this.memory.get(memoryKey);
+            this.memory.delete(memoryKey);
+            this.memory.set(memoryKey, value);
+            this.hits++;
+            return clone(value);
+        }
+
+        const file = this.pathFor(kind, key);
+        try {
+            const value = JSON.parse(await fs.promises.readFile(file, 'utf8'));
+            this.remember(memoryKey, value);
+            // Touch the file so disk pruning sees it as recently used
+            const now = new Date();
+            fs.promises.utimes(file, now, now).catch(() => {});
+            this.hits++;
+            return clone(value);
+        } catch (error) {
+            this.misses++;
+            return null;
+        }
+    }
+
+    async set(kind, key, value) {
+        const stored = clone(value);
+        this.remember(`${kind}:${key}`, stored);
+
+        const file = this.pathFor(kind, key);
+        const temp = `${file}.${process.pid}.tmp`;
+        try {
+            await fs.promises.mkdir(path.dirname(file), { recursive: true });
+            await fs.promises.writeFile(temp, JSON.stringify(stored));
+            await fs.promises.rename(temp, file);
+        } catch (error) {
+            // The disk tier is best effort; the memory tier still has the entry
+            console.log('⚠️ Grading cache write failed:', error.message);
+            return;
+        }
+        if (++this.writes % 100 === 0) {
+            await this.prune(kind);
+        }
+    }
+
+    remember(memoryKey, value) {
+        this.memory.delete(memoryKey);
+        this.memory.set(memoryKey, value);
+        while (this.memory.size > this.maxEntries) {
+            this.memory.delete(this.memory.keys().next().value);
+        }
+    }
+
+    /**
+     * Delete the least recently used disk entries of a kind beyond maxDiskEntries
+     */
+    async prune(kind) {
+        const kindDir = path.join(this.dir, kind);
+        try {
+            const names = await fs.promises.readdir(kindDir);
+            if (names.length <= this.maxDiskEntries) {
+                return;
+            }
+            const entries = await Promise.all(names.map(async name => {
+                const stat = await fs.promises.stat(path.join(kindDir, name)).catch(() => null);
+                return { name, used: stat ? stat.mtimeMs : 0 };
+            }));
+            entries.sort((a, b) => a.used - b.used);
+            await Promise.all(entries.slice(0, entries.length - this.maxDiskEntries)
+                .map(entry => fs.promises.unlink(path.join(kindDir, entry.name)).catch(() => {})));
+        } catch (error) {
+            console.log('⚠️ Grading cache prune failed:', error.message);
+        }
+    }
+
+    pathFor(kind, key) {
+        return path.join(this.dir, kind, `${key}.json`);
+    }
+}
+
+function sha256(text) {
+    return crypto.createHash('sha256').update(text).digest('hex');
+}
+
+// Entries are plain JSON; copies keep callers from mutating what is cached
+function clone(value) {
+    return JSON.parse(JSON.stringify(value));
+}
+
+module.exports = GradingCache;
+module.exports.sha256 = sha256;
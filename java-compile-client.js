@@ -0,0 +1,231 @@
+/**
+ * Java Compile Client
+ * Talks to the long-lived CompileService JVM (java-service/CompileService.java)
+ * over its stdin/stdout pipe, so each submission is compiled in a warm
+ * compiler instead of starting a new javac process. Compiles that share a
+ * session (e.g. one student's resubmissions) only recompile the files that
+ * changed since the session's last clean build.
+ */
+
+const { spawn, execFile } = require('child_process');
+const { promisify } = require('util');
+const fs = require('fs');
+const path = require('path');
+
+const execFileAsync = promisify(execFile);
+
+const SERVICE_DIR = path.join(__dirname, 'java-service');
+const BUILD_DIR = path.join(SERVICE_DIR, 'build');
+
+class JavaCompileClient {
+    constructor(options = {}) {
+        this.timeout = options.timeout || 10000;
+        this.javaCommand = options.javaCommand || 'java';
+        this.javacCommand = options.javacCommand || 'javac';
+        this.process = null;
+        this.starting = null;
+        this.nextId = 1;
+        this.pending = new Map();
+        this.buffer = Buffer.alloc(0);
+    }
+
+    /**
+     * Compile sources given as [{ name, source }], incrementally within session if one is given.
+     * Resolves to { success, diagnostics, classes: [{ name, bytes }] }.
+     * Rejects only if the service itself fails, so callers can fall back to javac.
+     */
+    async compile(files, session = '') {
+        const child = await this.ensureStarted();
+        const id = this.nextId++;
+
+        const parts = [int32(id), string(session), int32(files.length)];
+        for (const file of files) {
+            parts.push(string(file.name), string(file.source));
+        }
+
+        return new Promise((resolve, reject) => {
+            const timer = setTimeout(() => {
+                // A stuck compile poisons the pipe; restart the service on next use
+                this.pending.delete(id);
+                this.stop(new Error('Compile service timed out'));
+                reject(new Error(`Compile service timed out after ${this.timeout} ms`));
+            }, this.timeout);
+            this.pending.set(id, { resolve, reject, timer });
+            child.stdin.write(Buffer.concat(parts));
+        });
+    }
+
+    /**
+     * Compile .java files from disk and, on success, write the class files next to them
+     * (or into outputDir). Resolves to { success, diagnostics }.
+     */
+    async compileFiles(sourcePaths, outputDir, session = '') {
+        const files = await Promise.all(sourcePaths.map(async sourcePath => ({
+            name: path.basename(sourcePath),
+            source: await fs.promises.readFile(sourcePath, 'utf8')
+        })));
+        const result = await this.compile(files, session);
+        if (result.success) {
+            const targetDir = outputDir || path.dirname(sourcePaths[0]);
+            await writeClasses(result.classes, targetDir);
+        }
+        return { success: result.success, diagnostics: result.diagnostics };
+    }
+
+    /**
+     * Stop the service process; it is started again on the next compile
+     */
+    stop(reason) {
+        const child = this.process;
+        this.process = null;
+        this.starting = null;
+        this.buffer = Buffer.alloc(0);
+        for (const [id, request] of this.pending) {
+            clearTimeout(request.timer);
+            request.reject(reason || new Error('Compile service stopped'));
+        }
+        this.pending.clear();
+        if (child) {
+            child.kill();
+        }
+    }
+
+    async ensureStarted() {
+        if (this.process) {
+            return this.process;
+        }
+        if (!this.starting) {
+            this.starting = this.start().catch(error => {
+                this.starting = null;
+                throw error;
+            });
+        }
+        return this.starting;
+    }
+
+    async start() {
+        await buildService(this.javacCommand, 'CompileService');
+        const child = spawn(this.javaCommand, ['-XX:+UseSerialGC', '-cp', BUILD_DIR, 'CompileService'], {
+            stdio: ['pipe', 'pipe', 'pipe']
+        });
+        child.stdout.on('data', chunk => this.onData(chunk));
+        child.stderr.on('data', chunk => console.error(`[compile-service] ${chunk.toString().trimEnd()}`));
+        child.on('exit', code => {
+            if (this.process === child) {
+                this.stop(new Error(`Compile service exited with code ${code}`));
+            }
+        });
+        child.on('error', error => {
+            if (this.process === child) {
+                this.stop(error);
+            }
+        });
+        child.stdin.on('error', () => {
+            // Reported through the exit handler
+        });
+        this.process = child;
+        console.log('☕ Compile service started');
+        return child;
+    }
+
+    onData(chunk) {
+        this.buffer = this.buffer.length === 0 ? chunk : Buffer.concat([this.buffer, chunk]);
+        let parsed;
+        while ((parsed = parseResponse(this.buffer)) !== null) {
+            this.buffer = this.buffer.subarray(parsed.length);
+            const request = this.pending.get(parsed.id);
+            if (request) {
+                clearTimeout(request.timer);
+                this.pending.delete(parsed.id);
+                request.resolve(parsed.result);
+            }
+        }
+    }
+}
+
+/**
+ * Compile a class from java-service/ into java-service/build/ if the class file
+ * is missing or older than any service source (classes there use each other)
+ */
+async function buildService(javacCommand, className) {
+    const source = path.join(SERVICE_DIR, `${className}.java`);
+    const target = path.join(BUILD_DIR, `${className}.class`);
+    const sources = (await fs.promises.readdir(SERVICE_DIR)).filter(name => name.endsWith('.java'));
+    const [sourceStats, targetStat] = await Promise.all([
+        Promise.all(sources.map(name => fs.promises.stat(path.join(SERVICE_DIR, name)))),
+        fs.promises.stat(target).catch(() => null)
+    ]);
+    if (targetStat && sourceStats.every(stat => targetStat.mtimeMs >= stat.mtimeMs)) {
+        return;
+    }
+    await fs.promises.mkdir(BUILD_DIR, { recursive: true });
+    await execFileAsync(javacCommand, ['-encoding', 'UTF-8', '-d', BUILD_DIR, '-cp', SERVICE_DIR, source], {
+        timeout: 60000
+    });
+}
+
+async function writeClasses(classes, outputDir) {
+    await Promise.all(classes.map(async compiled => {
+        const file = path.join(outputDir, ...compiled.name.split('.')) + '.class';
+        await fs.promises.mkdir(path.dirname(file), { recursive: true });
+        await fs.promises.writeFile(file, compiled.bytes);
+    }));
+}
+
+/**
+ * Parse one response frame from the start of the buffer, or return null if it is incomplete
+ */
+function parseResponse(buffer) {
+    let offset = 0;
+    const need = bytes => offset + bytes <= buffer.length;
+    const readInt = () => {
+        const value = buffer.readInt32BE(offset);
+        offset += 4;
+        return value;
+    };
+    const readBytes = () => {
+        if (!need(4)) return null;
+        const length = buffer.readInt32BE(offset);
+        if (!need(4 + length)) return null;
+        const bytes = buffer.subarray(offset + 4, offset + 4 + length);
+        offset += 4 + length;
+        return bytes;
+    };
+
+    if (!need(5)) return null;
+    const id = readInt();
+    const success = buffer[offset++] !== 0;
+    const diagnostics = readBytes();
+    if (diagnostics === null || !need(4)) return null;
+    const count = readInt();
+    const classes = [];
+    for (let i = 0; i < count; i++) {
+        const name = readBytes();
+        if (name === null) return null;
+        const bytes = readBytes();
+        if (bytes === null) return null;
+        classes.push({ name: name.toString('utf8'), bytes: Buffer.from(bytes) });
+    }
+    return {
+        id,
+        length: offset,
+        result: { success, diagnostics: diagnostics.toString('utf8'), classes }
+    };
+}
+
+function int32(value) {
+    const buffer = Buffer.alloc(4);
+    buffer.writeInt32BE(value);
+    return buffer;
+}
+
+function string(text) {
+    const bytes = Buffer.from(text, 'utf8');
+    return Buffer.concat([int32(bytes.length), bytes]);
+}
+
+module.exports = JavaCompileClient;
+module.exports.buildService = buildService;
+module.exports.writeClasses = writeClasses;
+module.exports.SERVICE_DIR = SERVICE_DIR;
+module.exports.BUILD_DIR = BUILD_DIR;
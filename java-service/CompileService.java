@@ -0,0 +1,619 @@
+/**
+ * CompileService.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * A long-lived compiler process for the grader. It keeps one javax.tools
+ * JavaCompiler and its file manager warm, so after the first few requests a
+ * compile takes tens of milliseconds instead of a full javac JVM start.
+ * Sources are compiled in memory: nothing is read from or written to disk.
+ *
+ * A request may name a session (e.g. one per student). The service keeps the
+ * session's last clean build and, when only some files changed, recompiles
+ * just those against the classes of the others. If a changed file's API
+ * (non-private members, constant values, supertypes) is different, anything
+ * using it could break, so the whole session is rebuilt instead. A build with
+ * diagnostics is always redone in full so its output matches plain javac.
+ *
+ * Requests arrive on stdin and responses leave on stdout, one at a time, as
+ * big-endian frames (strings are [int length][UTF-8 bytes]):
+ *
+ *   request:  [int id][string session, empty for none][int file count] ([string file name][string source])...
+ *   response: [int id][boolean success][string diagnostics]
+ *             [int class count] ([string binary name][int length][class bytes])...
+ *
+ * Diagnostics are formatted like javac's own output. Anything javac would
+ * print is kept off stdout so it can't corrupt the frames.
+ *
+ * Started by java-compile-client.js; run by hand with: java CompileService
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+public class CompileService {
+    // javac options for every request; annotation processing is never needed here
+    private static final List<String> OPTIONS = Arrays.asList("-proc:none", "-implicit:none");
+
+    // Sessions whose last build is kept for incremental compiles, least recently used dropped first
+    private static final int MAX_SESSIONS = 256;
+
+    private final JavaCompiler compiler;
+    private final StandardJavaFileManager standardFileManager;
+    private final Map<String, Build> sessions = new LinkedHashMap<String, Build>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Build> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    // Result of one compile
+    public static class Result {
+        private final boolean success;
+        private final String diagnostics;
+        private final Map<String, byte[]> classes;
+
+        Result(boolean success, String diagnostics, Map<String, byte[]> classes) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.classes = classes;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getDiagnostics() {
+            return diagnostics;
+        }
+
+        // Class file bytes by binary name, e.g. "PortfolioManager$Position"
+        public Map<String, byte[]> getClasses() {
+            return classes;
+        }
+    }
+
+    // A compile kept for a session: the sources, the result and which classes came from which file
+    private static final class Build {
+        private final Map<String, String> sources;
+        private final Result result;
+        private final Map<String, List<String>> classesByUnit;
+        private final Map<String, String> apiByUnit;
+
+        Build(Map<String, String> sources, Result result, Map<String, List<String>> classesByUnit,
+              Map<String, String> apiByUnit) {
+            this.sources = sources;
+            this.result = result;
+            this.classesByUnit = classesByUnit;
+            this.apiByUnit = apiByUnit;
+        }
+    }
+
+    public CompileService() {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler; run the service on a JDK, not a JRE");
+        }
+        standardFileManager = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        // stdout carries the frames; route stray prints to stderr instead
+        OutputStream frames = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+
+        CompileService service = new CompileService();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in), 1 << 16));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(frames, 1 << 16));
+        while (true) {
+            int id;
+            try {
+                id = in.readInt();
+            } catch (EOFException e) {
+                return; // client went away
+            }
+            String session = readString(in);
+            int fileCount = in.readInt();
+            Map<String, String> sources = new LinkedHashMap<String, String>();
+            for (int i = 0; i < fileCount; i++) {
+                String name = readString(in);
+                sources.put(name, readString(in));
+            }
+
+            Result result;
+            try {
+                result = service.compile(session, sources);
+            } catch (RuntimeException e) {
+                // A compiler crash fails this request, not the service
+                result = new Result(false, "Compiler error: " + e, new LinkedHashMap<String, byte[]>());
+            }
+
+            out.writeInt(id);
+            out.writeBoolean(result.isSuccess());
+            writeString(out, result.getDiagnostics());
+            out.writeInt(result.getClasses().size());
+            for (Map.Entry<String, byte[]> compiled : result.getClasses().entrySet()) {
+                writeString(out, compiled.getKey());
+                out.writeInt(compiled.getValue().length);
+                out.write(compiled.getValue());
+            }
+            out.flush();
+        }
+    }
+
+    // Compiles the sources (file name -> text) together; class files are returned only on success
+    public Result compile(Map<String, String> sources) {
+        return build(sources).result;
+    }
+
+    // Compiles the sources for a session, reusing classes of files unchanged since its last clean build
+    public Result compile(String session, Map<String, String> sources) {
+        if (session.isEmpty()) {
+            return compile(sources);
+        }
+        Build previous = sessions.get(session);
+        Build build = null;
+        if (previous != null && previous.sources.keySet().equals(sources.keySet())) {
+            build = rebuild(previous, sources);
+        }
+        if (build == null) {
+            build = build(sources);
+        }
+        if (build.result.isSuccess() && build.result.getDiagnostics().isEmpty()) {
+            sessions.put(session, build);
+        }
+        return build.result;
+    }
+
+    // Full build of every source
+    private Build build(Map<String, String> sources) {
+        return compileUnits(sources, sources.keySet(), Collections.<String, byte[]>emptyMap());
+    }
+
+    // Recompiles only the files that changed since the previous build; null if a full build is needed
+    private Build rebuild(Build previous, Map<String, String> sources) {
+        List<String> changed = new ArrayList<String>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            if (!source.getValue().equals(previous.sources.get(source.getKey()))) {
+                changed.add(source.getKey());
+            }
+        }
+        if (changed.isEmpty()) {
+            return previous;
+        }
+        if (changed.size() == sources.size()) {
+            return null;
+        }
+
+        // Classes of the unchanged files go on the class path; the changed files' old classes must not
+        Map<String, byte[]> classPath = new LinkedHashMap<String, byte[]>(previous.result.getClasses());
+        for (String name : changed) {
+            classPath.keySet().removeAll(previous.classesByUnit.get(name));
+        }
+        Build partial = compileUnits(sources, changed, classPath);
+        if (!partial.result.isSuccess() || !partial.result.getDiagnostics().isEmpty()) {
+            return null;
+        }
+        for (String name : changed) {
+            if (!partial.apiByUnit.get(name).equals(previous.apiByUnit.get(name))) {
+                return null; // Files using it must be checked again
+            }
+        }
+
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        Map<String, List<String>> classesByUnit = new LinkedHashMap<String, List<String>>();
+        Map<String, String> apiByUnit = new LinkedHashMap<String, String>();
+        for (String name : sources.keySet()) {
+            Build from = changed.contains(name) ? partial : previous;
+            List<String> unitClasses = from.classesByUnit.get(name);
+            for (String className : unitClasses) {
+                classes.put(className, from.result.getClasses().get(className));
+            }
+            classesByUnit.put(name, unitClasses);
+            apiByUnit.put(name, from.apiByUnit.get(name));
+        }
+        return new Build(new LinkedHashMap<String, String>(sources), new Result(true, "", classes), classesByUnit,
+            apiByUnit);
+    }
+
+    // Compiles the named files out of sources, with classPath (binary name -> bytes) visible to them
+    private Build compileUnits(Map<String, String> sources, Iterable<String> names, Map<String, byte[]> classPath) {
+        List<JavaFileObject> units = new ArrayList<JavaFileObject>();
+        for (String name : names) {
+            units.add(new SourceFile(name, sources.get(name)));
+        }
+        MemoryFileManager fileManager = new MemoryFileManager(standardFileManager, classPath);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StringWriter messages = new StringWriter();
+
+        boolean success = compiler.getTask(messages, fileManager, diagnostics, OPTIONS, null, units).call();
+
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        Map<String, List<String>> classesByUnit = new LinkedHashMap<String, List<String>>();
+        Map<String, String> apiByUnit = new LinkedHashMap<String, String>();
+        if (success) {
+            for (String name : names) {
+                classesByUnit.put(name, new ArrayList<String>());
+            }
+            for (Map.Entry<String, ByteArrayOutputStream> output : fileManager.outputs.entrySet()) {
+                classes.put(output.getKey(), output.getValue().toByteArray());
+                List<String> unitClasses = classesByUnit.get(fileManager.origins.get(output.getKey()));
+                if (unitClasses != null) {
+                    unitClasses.add(output.getKey());
+                }
+            }
+            for (Map.Entry<String, List<String>> unit : classesByUnit.entrySet()) {
+                apiByUnit.put(unit.getKey(), api(unit.getValue(), classes));
+            }
+        }
+        Result result = new Result(success, format(diagnostics.getDiagnostics(), sources) + messages, classes);
+        return new Build(new LinkedHashMap<String, String>(sources), result, classesByUnit, apiByUnit);
+    }
+
+    // What other files can see of a file's classes: everything that, if changed, could change how they compile
+    static String api(List<String> classNames, Map<String, byte[]> classes) {
+        Map<String, String> sorted = new TreeMap<String, String>();
+        for (String className : classNames) {
+            try {
+                sorted.put(className, ClassApi.describe(classes.get(className)));
+            } catch (IOException | RuntimeException e) {
+                // Unreadable class file; make sure it never matches so the session is rebuilt
+                sorted.put(className, "unreadable " + System.nanoTime());
+            }
+        }
+        return sorted.toString();
+    }
+
+    // Same shape as javac's output: "File.java:12: error: message", the source line, a caret, then a count
+    static String format(List<Diagnostic<? extends JavaFileObject>> diagnostics, Map<String, String> sources) {
+        StringBuilder text = new StringBuilder();
+        int errors = 0;
+        int warnings = 0;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            String kind;
+            switch (diagnostic.getKind()) {
+                case ERROR:
+                    kind = "error";
+                    errors++;
+                    break;
+                case WARNING:
+                case MANDATORY_WARNING:
+                    kind = "warning";
+                    warnings++;
+                    break;
+                default:
+                    // Notes such as "uses unchecked or unsafe operations" have no position
+                    text.append("Note: ").append(diagnostic.getMessage(Locale.ROOT)).append('\n');
+                    continue;
+            }
+            JavaFileObject source = diagnostic.getSource();
+            String name = source == null ? null : SourceFile.nameOf(source);
+            if (name != null && diagnostic.getLineNumber() != Diagnostic.NOPOS) {
+                text.append(name).append(':').append(diagnostic.getLineNumber()).append(": ");
+            }
+            text.append(kind).append(": ").append(diagnostic.getMessage(Locale.ROOT)).append('\n');
+            String line = name == null ? null : sourceLine(sources.get(name), diagnostic.getLineNumber());
+            if (line != null && diagnostic.getColumnNumber() != Diagnostic.NOPOS) {
+                text.append(line).append('\n');
+                for (long i = 1; i < diagnostic.getColumnNumber(); i++) {
+                    text.append(i <= line.length() && line.charAt((int) i - 1) == '\t' ? '\t' : ' ');
+                }
+                text.append("^\n");
+            }
+        }
+        if (errors > 0) {
+            text.append(errors).append(errors == 1 ? " error\n" : " errors\n");
+        }
+        if (warnings > 0) {
+            text.append(warnings).append(warnings == 1 ? " warning\n" : " warnings\n");
+        }
+        return text.toString();
+    }
+
+    private static String sourceLine(String source, long lineNumber) {
+        if (source == null || lineNumber < 1) {
+            return null;
+        }
+        int start = 0;
+        for (long line = 1; line < lineNumber; line++) {
+            start = source.indexOf('\n', start) + 1;
+            if (start == 0) {
+                return null;
+            }
+        }
+        int end = source.indexOf('\n', start);
+        String text = end < 0 ? source.substring(start) : source.substring(start, end);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // A source file held in memory; the URI path is the file name so javac's
+    // "public class must be in a file named X.java" check still works
+    static final class SourceFile extends SimpleJavaFileObject {
+        private final String name;
+        private final String text;
+
+        SourceFile(String name, String text) {
+            super(URI.create("string:///" + name.replace('\\', '/')), Kind.SOURCE);
+            this.name = name;
+            this.text = text;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return text;
+        }
+
+        static String nameOf(JavaFileObject file) {
+            return file instanceof SourceFile ? ((SourceFile) file).name : file.getName();
+        }
+    }
+
+    // Collects class files in memory, noting which source each came from, and serves earlier
+    // classes on the class path; platform classes still come from the shared standard manager
+    static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> outputs = new LinkedHashMap<String, ByteArrayOutputStream>();
+        private final Map<String, String> origins = new LinkedHashMap<String, String>();
+        private final Map<String, byte[]> classPath;
+
+        MemoryFileManager(StandardJavaFileManager standard, Map<String, byte[]> classPath) {
+            super(standard);
+            this.classPath = classPath;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            outputs.put(className, bytes);
+            if (sibling instanceof JavaFileObject) {
+                origins.put(className, SourceFile.nameOf((JavaFileObject) sibling));
+            }
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return bytes;
+                }
+            };
+        }
+
+        @Override
+        public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds,
+                                             boolean recurse) throws IOException {
+            Iterable<JavaFileObject> standard = super.list(location, packageName, kinds, recurse);
+            if (location != StandardLocation.CLASS_PATH || classPath.isEmpty()
+                    || !kinds.contains(JavaFileObject.Kind.CLASS)) {
+                return standard;
+            }
+            List<JavaFileObject> files = new ArrayList<JavaFileObject>();
+            for (Map.Entry<String, byte[]> compiled : classPath.entrySet()) {
+                int dot = compiled.getKey().lastIndexOf('.');
+                String classPackage = dot < 0 ? "" : compiled.getKey().substring(0, dot);
+                if (classPackage.equals(packageName) || (recurse && classPackage.startsWith(packageName + "."))) {
+                    files.add(new ClassFile(compiled.getKey(), compiled.getValue()));
+                }
+            }
+            for (JavaFileObject file : standard) {
+                files.add(file);
+            }
+            return files;
+        }
+
+        @Override
+        public String inferBinaryName(Location location, JavaFileObject file) {
+            if (file instanceof ClassFile) {
+                return ((ClassFile) file).binaryName;
+            }
+            return super.inferBinaryName(location, file);
+        }
+
+        @Override
+        public void close() {
+            // The standard manager is shared across requests; keep it open
+        }
+    }
+
+    // A class file from an earlier build, held in memory
+    static final class ClassFile extends SimpleJavaFileObject {
+        private final String binaryName;
+        private final byte[] bytes;
+
+        ClassFile(String binaryName, byte[] bytes) {
+            super(URI.create("mem:///" + binaryName.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.binaryName = binaryName;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public InputStream openInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+    }
+
+    // Reads the parts of a class file that other classes compile against
+    static final class ClassApi {
+        private static final int ACC_PRIVATE = 0x0002;
+
+        private final DataInputStream in;
+        private final Object[] constants;
+
+        private ClassApi(byte[] classFile) throws IOException {
+            in = new DataInputStream(new ByteArrayInputStream(classFile));
+            if (in.readInt() != 0xCAFEBABE) {
+                throw new IOException("Not a class file");
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+            constants = new Object[in.readUnsignedShort()];
+            for (int i = 1; i < constants.length; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:
+                        constants[i] = in.readUTF();
+                        break;
+                    case 3:
+                        constants[i] = in.readInt();
+                        break;
+                    case 4:
+                        constants[i] = in.readFloat();
+                        break;
+                    case 5:
+                        constants[i++] = in.readLong();
+                        break;
+                    case 6:
+                        constants[i++] = in.readDouble();
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        // Class, String, MethodType, Module, Package: an index to resolve later
+                        constants[i] = new int[] {in.readUnsignedShort()};
+                        break;
+                    case 15:
+                        in.readUnsignedByte();
+                        in.readUnsignedShort();
+                        break;
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        in.readInt();
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag);
+                }
+            }
+        }
+
+        static String describe(byte[] classFile) throws IOException {
+            return new ClassApi(classFile).read();
+        }
+
+        private String read() throws IOException {
+            StringBuilder api = new StringBuilder();
+            api.append(in.readUnsignedShort()).append(' ').append(constant(in.readUnsignedShort()));
+            api.append(" extends ").append(constant(in.readUnsignedShort())).append(" implements");
+            int interfaces = in.readUnsignedShort();
+            for (int i = 0; i < interfaces; i++) {
+                api.append(' ').append(constant(in.readUnsignedShort()));
+            }
+            api.append('\n');
+            readMembers(api); // fields
+            readMembers(api); // methods
+            readAttributes(api, true);
+            return api.toString();
+        }
+
+        private void readMembers(StringBuilder api) throws IOException {
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                int access = in.readUnsignedShort();
+                String name = (String) constants[in.readUnsignedShort()];
+                String descriptor = (String) constants[in.readUnsignedShort()];
+                boolean visible = (access & ACC_PRIVATE) == 0;
+                StringBuilder member = visible ? api : new StringBuilder();
+                member.append("  ").append(access).append(' ').append(name).append(' ').append(descriptor);
+                readAttributes(member, visible);
+                member.append('\n');
+            }
+        }
+
+        // Keeps the attributes that change how callers compile: generic signatures, checked
+        // exceptions, inlined constant values and nested class flags; skips code and debug info
+        private void readAttributes(StringBuilder api, boolean keep) throws IOException {
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                String name = (String) constants[in.readUnsignedShort()];
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                if (!keep) {
+                    continue;
+                }
+                DataInputStream attribute = new DataInputStream(new ByteArrayInputStream(value));
+                switch (name) {
+                    case "ConstantValue":
+                    case "Signature":
+                        api.append(' ').append(name).append('=').append(constant(attribute.readUnsignedShort()));
+                        break;
+                    case "Exceptions":
+                    case "PermittedSubclasses":
+                        api.append(' ').append(name).append('=');
+                        int entries = attribute.readUnsignedShort();
+                        for (int j = 0; j < entries; j++) {
+                            api.append(constant(attribute.readUnsignedShort())).append(',');
+                        }
+                        break;
+                    case "InnerClasses":
+                        api.append(' ').append(name).append('=');
+                        int classes = attribute.readUnsignedShort();
+                        for (int j = 0; j < classes; j++) {
+                            api.append(constant(attribute.readUnsignedShort())).append('/');
+                            attribute.readUnsignedShort(); // outer class
+                            attribute.readUnsignedShort(); // simple name
+                            api.append(attribute.readUnsignedShort()).append(',');
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        // A constant's value, following Class and String entries to their names
+        private Object constant(int index) {
+            if (index == 0) {
+                return "";
+            }
+            Object value = constants[index];
+            return value instanceof int[] ? constants[((int[]) value)[0]] : value;
+        }
+    }
+}
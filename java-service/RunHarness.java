@@ -0,0 +1,688 @@
+/**
+ * RunHarness.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Runs student programs side by side inside one shared JVM, each one fenced off
+ * from the others:
+ *   - its own URLClassLoader (parent: the platform loader), so classes and
+ *     static state are never shared between submissions
+ *   - its own ThreadGroup; every thread the program starts is counted against it
+ *   - its own stdin, stdout and stderr. System.in/out/err are replaced once by
+ *     routing streams that look up the calling thread's run through an
+ *     InheritableThreadLocal, so threads the program starts are routed too.
+ *   - limits on wall-clock time, CPU time and bytes allocated, summed over the
+ *     run's threads and checked by a guard thread every GUARD_INTERVAL_MILLIS
+ *   - System.exit() trapped per run by a SecurityManager, where the JVM allows one.
+ *   - a sandbox: classes loaded for a run get only the permissions in
+ *     RunLoader (read system properties, use files under the run's class
+ *     directory), so everything else is refused: System.setOut/setIn/setErr,
+ *     System.setProperty (and so Locale/TimeZone.setDefault), reflection into
+ *     other classes, class loaders, sockets, Thread.stop() and so on. JDK code
+ *     acting in doPrivileged blocks is unaffected. A run also can't touch any
+ *     thread or thread group outside its own group, so it can't reach the
+ *     threads of the runs beside it.
+ *
+ * A trapped System.exit() ends the run as it would end a process: output is
+ * no longer captured and its threads are stopped, even if student code
+ * catches the exception that stands in for the exit.
+ *
+ * A run that breaks a limit is stopped: its threads are interrupted, then, if
+ * they keep going (a busy while loop never checks), stopped with Thread.stop()
+ * where the JVM still supports it. A thread that survives even that is left
+ * behind and the result is marked "recycle" so the caller retires this JVM.
+ * As with the java launcher, a run ends when its last non-daemon thread does.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilePermission;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.Permission;
+import java.security.Permissions;
+import java.security.Policy;
+import java.security.ProtectionDomain;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PropertyPermission;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RunHarness {
+    // How a run ended
+    public enum Status {
+        RETURNED,
+        THREW,
+        EXITED,
+        TIMED_OUT,
+        CPU_LIMIT,
+        MEMORY_LIMIT
+    }
+
+    public static final long GUARD_INTERVAL_MILLIS = 10;
+
+    // Output kept per stream; anything past this is dropped so a print loop can't exhaust the heap
+    public static final int OUTPUT_LIMIT = 1 << 20;
+
+    // Time given to interrupted threads, then to stopped threads, before giving up on them
+    private static final long GRACE_MILLIS = 200;
+
+    private static final RuntimePermission MODIFY_THREAD = new RuntimePermission("modifyThread");
+    private static final RuntimePermission MODIFY_THREAD_GROUP = new RuntimePermission("modifyThreadGroup");
+
+    // Per-run limits; 0 means no limit
+    public static class Limits {
+        private final long wallMillis;
+        private final long cpuMillis;
+        private final long allocatedBytes;
+
+        public Limits(long wallMillis, long cpuMillis, long allocatedBytes) {
+            this.wallMillis = wallMillis;
+            this.cpuMillis = cpuMillis;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    public static class Result {
+        private final Status status;
+        private final int exitCode;
+        private final String stdout;
+        private final String stderr;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+        private final boolean recycle;
+
+        Result(Status status, int exitCode, String stdout, String stderr, long cpuNanos, long allocatedBytes,
+               boolean recycle) {
+            this.status = status;
+            this.exitCode = exitCode;
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.recycle = recycle;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        // Process-style exit code: 0 for a normal return, the System.exit status, 1 otherwise
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public String getStdout() {
+            return stdout;
+        }
+
+        public String getStderr() {
+            return stderr;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        // True if a thread of this run could not be stopped and the JVM should be retired
+        public boolean isRecycle() {
+            return recycle;
+        }
+    }
+
+    // Thrown in place of System.exit() inside a run
+    static final class ExitRequest extends SecurityException {
+        private static final long serialVersionUID = 1L;
+
+        ExitRequest(int status) {
+            super("System.exit(" + status + ")");
+        }
+    }
+
+    // One execution; shared by all of its threads through CURRENT
+    private static final class Run {
+        private final Thread caller = Thread.currentThread();
+        private final ThreadGroup group;
+        private final InputStream in;
+        private final BoundedOutput out = new BoundedOutput();
+        private final BoundedOutput err = new BoundedOutput();
+        private final PrintStream errPrinter = new PrintStream(err, true, StandardCharsets.UTF_8);
+        private final Limits limits;
+        private final long deadline;
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        // Last CPU and allocation figures seen per thread, so threads that end still count
+        private final Map<Thread, long[]> usage = new IdentityHashMap<Thread, long[]>();
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        private volatile Status status = Status.RETURNED;
+        private volatile boolean exitRequested;
+        private volatile int exitStatus;
+
+        private Run(ThreadGroup group, String input, Limits limits) {
+            this.group = group;
+            this.in = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+            this.limits = limits;
+            this.deadline = limits.wallMillis > 0 ? System.nanoTime() + limits.wallMillis * 1000000L : Long.MAX_VALUE;
+        }
+
+        // True if the group is this run's group or one the run created inside it
+        private boolean owns(ThreadGroup candidate) {
+            // parentOf walks the parents directly; getParent() would call back into checkAccess
+            return group.parentOf(candidate);
+        }
+
+        // Records a limit breach; the first reason wins, and nothing counts after an exit
+        private synchronized boolean fail(Status reason) {
+            if (exitRequested || status == Status.TIMED_OUT || status == Status.CPU_LIMIT
+                    || status == Status.MEMORY_LIMIT) {
+                return false;
+            }
+            status = reason;
+            return true;
+        }
+
+        // Records a System.exit(); the first one wins. Output stops here, as it would for a process,
+        // and the caller is woken to stop whatever threads are left.
+        private synchronized void exit(int code) {
+            if (exitRequested || status != Status.RETURNED) {
+                return;
+            }
+            exitStatus = code;
+            exitRequested = true;
+            out.close();
+            err.close();
+            finished.countDown();
+        }
+    }
+
+    // Loads one run's classes; they are granted only the permissions below
+    private static final class RunLoader extends URLClassLoader {
+        private final Permissions permissions = new Permissions();
+
+        private RunLoader(Path classDirectory) throws IOException {
+            super(new URL[] {classDirectory.toUri().toURL()}, ClassLoader.getPlatformClassLoader());
+            String directory = classDirectory.toAbsolutePath().toString();
+            permissions.add(new PropertyPermission("*", "read"));
+            permissions.add(new FilePermission(directory, "read"));
+            permissions.add(new FilePermission(directory + File.separator + "-", "read,write,delete"));
+            permissions.setReadOnly();
+        }
+    }
+
+    // Full permissions for everything except classes loaded by a RunLoader
+    @SuppressWarnings("removal")
+    private static final class RunPolicy extends Policy {
+        @Override
+        public boolean implies(ProtectionDomain domain, Permission permission) {
+            ClassLoader loader = domain.getClassLoader();
+            return !(loader instanceof RunLoader) || ((RunLoader) loader).permissions.implies(permission);
+        }
+    }
+
+    private static final InheritableThreadLocal<Run> CURRENT = new InheritableThreadLocal<Run>();
+    private static final Set<Run> ACTIVE = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger RUN_NUMBERS = new AtomicInteger();
+
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+        THREADS instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+    private static boolean installed;
+    private static boolean exitTrapped;
+
+    private RunHarness() {
+    }
+
+    // Replaces the System streams with routing ones and starts the guard thread; call once at startup.
+    // Returns false if System.exit() can't be trapped on this JVM, in which case runs must not share it.
+    public static synchronized boolean install() {
+        if (installed) {
+            return exitTrapped;
+        }
+        installed = true;
+        PrintStream defaultOut = System.out;
+        PrintStream defaultErr = System.err;
+        InputStream defaultIn = System.in;
+        System.setIn(new RoutingInput(defaultIn));
+        System.setOut(new PrintStream(new RoutingOutput(defaultOut, false), true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new RoutingOutput(defaultErr, true), true, StandardCharsets.UTF_8));
+
+        if (THREADS.isThreadCpuTimeSupported()) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+        if (ALLOCATIONS != null && ALLOCATIONS.isThreadAllocatedMemorySupported()) {
+            ALLOCATIONS.setThreadAllocatedMemoryEnabled(true);
+        }
+        exitTrapped = installExitTrap();
+
+        Thread guard = new Thread(RunHarness::guard, "run-guard");
+        guard.setDaemon(true);
+        guard.start();
+        return exitTrapped;
+    }
+
+    public static boolean canTrapExit() {
+        return exitTrapped;
+    }
+
+    // Runs mainClass from classDirectory with the given stdin and waits for it to end
+    public static Result run(Path classDirectory, String mainClass, String input, Limits limits) throws IOException {
+        if (!installed) {
+            install();
+        }
+        int number = RUN_NUMBERS.incrementAndGet();
+        ThreadGroup group = new ThreadGroup("run-" + number);
+        Run run = new Run(group, input, limits);
+        boolean recycle = false;
+
+        try (RunLoader loader = new RunLoader(classDirectory)) {
+            Thread main = new Thread(group, () -> {
+                CURRENT.set(run);
+                try {
+                    invokeMain(run, loader, mainClass);
+                } finally {
+                    run.finished.countDown();
+                }
+            }, "main");
+            main.setContextClassLoader(loader);
+            ACTIVE.add(run);
+            main.start();
+
+            // Like the launcher, wait for every non-daemon thread, not just main
+            awaitNonDaemonThreads(run);
+            recycle = stopAll(run);
+        } finally {
+            ACTIVE.remove(run);
+        }
+
+        synchronized (run) {
+            sampleUsage(run);
+        }
+        Status status = run.exitRequested && run.status == Status.RETURNED ? Status.EXITED : run.status;
+        int exitCode;
+        if (status == Status.EXITED) {
+            exitCode = run.exitStatus;
+        } else {
+            exitCode = status == Status.RETURNED ? 0 : 1;
+        }
+        return new Result(status, exitCode, run.out.text(), run.err.text(), run.cpuNanos, run.allocatedBytes, recycle);
+    }
+
+    // What each unfinished run has produced so far, keyed by the thread that called run();
+    // used to answer for them if the JVM is going down
+    public static Map<Thread, Result> inProgress() {
+        Map<Thread, Result> results = new IdentityHashMap<Thread, Result>();
+        for (Run run : ACTIVE) {
+            results.put(run.caller, new Result(Status.EXITED, run.exitStatus, run.out.text(), run.err.text(),
+                run.cpuNanos, run.allocatedBytes, true));
+        }
+        return results;
+    }
+
+    private static void invokeMain(Run run, ClassLoader loader, String mainClass) {
+        try {
+            Method main = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+            if (!Modifier.isStatic(main.getModifiers())) {
+                run.errPrinter.println("Error: Main method is not static in class " + mainClass);
+                run.fail(Status.THREW);
+                return;
+            }
+            main.invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException e) {
+            if (run.exitRequested || run.status != Status.RETURNED) {
+                return; // exit trapped, or stopped by the guard
+            }
+            run.errPrinter.print("Exception in thread \"main\" ");
+            e.getCause().printStackTrace(run.errPrinter);
+            run.fail(Status.THREW);
+        } catch (ClassNotFoundException e) {
+            run.errPrinter.println("Error: Could not find or load main class " + mainClass);
+            run.fail(Status.THREW);
+        } catch (NoSuchMethodException e) {
+            run.errPrinter.println("Error: Main method not found in class " + mainClass);
+            run.fail(Status.THREW);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            run.errPrinter.println("Error: " + e);
+            run.fail(Status.THREW);
+        }
+    }
+
+    private static void awaitNonDaemonThreads(Run run) {
+        try {
+            while (true) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(run.deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    breach(run, Status.TIMED_OUT);
+                    return;
+                }
+                if (!run.finished.await(Math.min(remaining, 50), TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                if (run.exitRequested) {
+                    return; // System.exit() ends every thread, daemon or not
+                }
+                Thread other = firstNonDaemon(run.group);
+                if (other == null) {
+                    return;
+                }
+                other.join(Math.min(remaining, 50));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breach(run, Status.TIMED_OUT);
+        }
+    }
+
+    // Interrupts, then stops, whatever is still running in the group; true if something survived
+    @SuppressWarnings({"deprecation", "removal"})
+    private static boolean stopAll(Run run) {
+        if (!waitForGroup(run.group, true)) {
+            return false;
+        }
+        for (Thread thread : threadsOf(run.group)) {
+            try {
+                thread.stop();
+            } catch (UnsupportedOperationException e) {
+                break; // Thread.stop() is gone on this JVM
+            }
+        }
+        return waitForGroup(run.group, false);
+    }
+
+    // Optionally interrupts the group, then waits up to GRACE_MILLIS; true if threads are still alive
+    private static boolean waitForGroup(ThreadGroup group, boolean interrupt) {
+        if (interrupt) {
+            group.interrupt();
+        }
+        long end = System.nanoTime() + GRACE_MILLIS * 1000000L;
+        while (System.nanoTime() < end) {
+            Thread[] threads = threadsOf(group);
+            if (threads.length == 0) {
+                return false;
+            }
+            try {
+                threads[0].join(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return threadsOf(group).length > 0;
+    }
+
+    // Guard thread: adds up CPU time and allocation per run and stops runs over their limits
+    private static void guard() {
+        while (true) {
+            try {
+                Thread.sleep(GUARD_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (Run run : ACTIVE) {
+                Status breach = null;
+                synchronized (run) {
+                    sampleUsage(run);
+                    if (now >= run.deadline) {
+                        breach = Status.TIMED_OUT;
+                    } else if (run.limits.cpuMillis > 0 && run.cpuNanos > run.limits.cpuMillis * 1000000L) {
+                        breach = Status.CPU_LIMIT;
+                    } else if (run.limits.allocatedBytes > 0 && run.allocatedBytes > run.limits.allocatedBytes) {
+                        breach = Status.MEMORY_LIMIT;
+                    }
+                }
+                if (breach != null) {
+                    breach(run, breach);
+                }
+            }
+        }
+    }
+
+    // Marks the run as over a limit, says so on its stderr and wakes its caller to tear it down
+    private static void breach(Run run, Status reason) {
+        if (run.fail(reason)) {
+            run.errPrinter.println(describe(reason, run.limits));
+            run.finished.countDown();
+            run.group.interrupt();
+        }
+    }
+
+    private static void sampleUsage(Run run) {
+        for (Thread thread : threadsOf(run.group)) {
+            long[] last = run.usage.get(thread);
+            if (last == null) {
+                last = new long[2];
+                run.usage.put(thread, last);
+            }
+            long cpu = THREADS.isThreadCpuTimeSupported() ? THREADS.getThreadCpuTime(thread.getId()) : -1;
+            long allocated = ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(thread.getId()) : -1;
+            // -1 means the thread ended between listing and reading; keep its last figures
+            if (cpu >= 0) {
+                last[0] = cpu;
+            }
+            if (allocated >= 0) {
+                last[1] = allocated;
+            }
+        }
+        long cpuTotal = 0;
+        long allocatedTotal = 0;
+        for (long[] figures : run.usage.values()) {
+            cpuTotal += figures[0];
+            allocatedTotal += figures[1];
+        }
+        run.cpuNanos = cpuTotal;
+        run.allocatedBytes = allocatedTotal;
+    }
+
+    private static String describe(Status breach, Limits limits) {
+        switch (breach) {
+            case TIMED_OUT:
+                return "Run stopped: time limit of " + limits.wallMillis + " ms exceeded";
+            case CPU_LIMIT:
+                return "Run stopped: CPU limit of " + limits.cpuMillis + " ms exceeded";
+            default:
+                return "Run stopped: allocation limit of " + limits.allocatedBytes / (1024 * 1024) + " MB exceeded";
+        }
+    }
+
+    private static Thread[] threadsOf(ThreadGroup group) {
+        Thread[] threads = new Thread[Math.max(group.activeCount() * 2, 4)];
+        int count = group.enumerate(threads, true);
+        Thread[] alive = new Thread[count];
+        System.arraycopy(threads, 0, alive, 0, count);
+        return alive;
+    }
+
+    private static Thread firstNonDaemon(ThreadGroup group) {
+        for (Thread thread : threadsOf(group)) {
+            if (!thread.isDaemon() && thread.isAlive()) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    // Installs the RunPolicy sandbox and a SecurityManager that traps System.exit() and
+    // checks permissions only from inside a run. Returns false on JVMs that no longer allow one.
+    @SuppressWarnings("removal")
+    private static boolean installExitTrap() {
+        try {
+            Policy.setPolicy(new RunPolicy());
+            System.setSecurityManager(new SecurityManager() {
+                @Override
+                public void checkExit(int status) {
+                    Run run = CURRENT.get();
+                    if (run != null) {
+                        run.exit(status);
+                        throw new ExitRequest(status);
+                    }
+                }
+
+                // Outside a run (the worker itself, the guard) everything is allowed without a stack walk
+                @Override
+                public void checkPermission(Permission permission) {
+                    if (CURRENT.get() != null) {
+                        super.checkPermission(permission);
+                    }
+                }
+
+                @Override
+                public void checkPermission(Permission permission, Object context) {
+                    if (CURRENT.get() != null) {
+                        super.checkPermission(permission, context);
+                    }
+                }
+
+                // The default only checks threads in the system group; a run may only
+                // touch its own threads without the permission, which it doesn't have
+                @Override
+                public void checkAccess(Thread thread) {
+                    Run run = CURRENT.get();
+                    ThreadGroup group = thread.getThreadGroup();
+                    if (run != null && group != null && !run.owns(group)) {
+                        checkPermission(MODIFY_THREAD);
+                    } else {
+                        super.checkAccess(thread);
+                    }
+                }
+
+                @Override
+                public void checkAccess(ThreadGroup group) {
+                    Run run = CURRENT.get();
+                    if (run != null && !run.owns(group)) {
+                        checkPermission(MODIFY_THREAD_GROUP);
+                    } else {
+                        super.checkAccess(group);
+                    }
+                }
+            });
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
+    // System.in for every thread: the calling run's input, or the JVM's own stdin outside a run
+    private static final class RoutingInput extends InputStream {
+        private final InputStream fallback;
+
+        private RoutingInput(InputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private InputStream target() {
+            Run run = CURRENT.get();
+            return run == null ? fallback : run.in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return target().read();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            return target().read(bytes, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return target().available();
+        }
+    }
+
+    // System.out or System.err for every thread, sent to the calling run's buffer
+    private static final class RoutingOutput extends OutputStream {
+        private final OutputStream fallback;
+        private final boolean error;
+
+        private RoutingOutput(OutputStream fallback, boolean error) {
+            this.fallback = fallback;
+            this.error = error;
+        }
+
+        private OutputStream target() {
+            Run run = CURRENT.get();
+            if (run == null) {
+                return fallback;
+            }
+            return error ? run.err : run.out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            target().write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+
+    // In-memory output that keeps at most OUTPUT_LIMIT bytes, and nothing once closed
+    static final class BoundedOutput extends ByteArrayOutputStream {
+        private boolean truncated;
+        private boolean closed;
+
+        @Override
+        public synchronized void write(int b) {
+            if (closed) {
+                return;
+            }
+            if (count < OUTPUT_LIMIT) {
+                super.write(b);
+            } else {
+                truncated = true;
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            if (closed) {
+                return;
+            }
+            int room = Math.min(length, OUTPUT_LIMIT - count);
+            if (room > 0) {
+                super.write(bytes, offset, room);
+            }
+            truncated |= room < length;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+
+        synchronized String text() {
+            String text = new String(buf, 0, count, StandardCharsets.UTF_8);
+            return truncated ? text + "\n[output truncated]\n" : text;
+        }
+    }
+}
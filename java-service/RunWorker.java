@@ -0,0 +1,145 @@
+/**
+ * RunWorker.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * A pre-warmed JVM that runs student programs, so a graded run no longer pays
+ * for JVM startup. Each request is handed to RunHarness, which gives the run
+ * its own ClassLoader, thread group and stdin/stdout/stderr and enforces its
+ * wall-clock, CPU and allocation limits. Several runs can be in progress at
+ * once, up to the parallelism given on the command line.
+ *
+ * System.exit() from student code is trapped by RunHarness where the JVM still
+ * allows a SecurityManager. Otherwise runs are taken one at a time, and a
+ * shutdown hook sends the captured output before the worker dies. A run whose
+ * threads could not be stopped is answered with "recycle" set; the pool then
+ * retires this worker once its other runs are done.
+ *
+ * Requests and responses are big-endian frames on stdin/stdout, strings being
+ * [int length][UTF-8 bytes]:
+ *   request:  [int id][string class directory][string main class][string input]
+ *             [int time limit ms][int CPU limit ms][long allocation limit bytes]
+ *   response: [int id][int status][int exit code][boolean recycle][string stdout][string stderr]
+ * Status is the ordinal of RunHarness.Status; a limit of 0 means none.
+ *
+ * Started by java-worker-pool.js; run by hand with: java RunWorker [parallelism]
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class RunWorker {
+    private static DataOutputStream frames;
+
+    // Request id being served by each executor thread, for the shutdown hook
+    private static final Map<Thread, Integer> SERVING = new ConcurrentHashMap<Thread, Integer>();
+
+    public static void main(String[] args) throws IOException {
+        frames = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        // Stray prints outside a run must not corrupt the frames on stdout
+        System.setOut(System.err);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in), 1 << 16));
+
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        boolean canTrapExit = RunHarness.install();
+        if (!canTrapExit) {
+            // An exit would take every concurrent run down with it
+            parallelism = 1;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(RunWorker::reportExit, "run-worker-exit"));
+        warmUp();
+
+        ExecutorService runs = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            while (true) {
+                int id;
+                try {
+                    id = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                String classDirectory = CompileService.readString(in);
+                String mainClass = CompileService.readString(in);
+                String input = CompileService.readString(in);
+                RunHarness.Limits limits = new RunHarness.Limits(in.readInt(), in.readInt(), in.readLong());
+                runs.execute(() -> serve(id, classDirectory, mainClass, input, limits));
+            }
+        } finally {
+            runs.shutdown();
+        }
+    }
+
+    private static void serve(int id, String classDirectory, String mainClass, String input,
+                              RunHarness.Limits limits) {
+        SERVING.put(Thread.currentThread(), id);
+        try {
+            respond(id, RunHarness.run(Paths.get(classDirectory), mainClass, input, limits));
+        } catch (IOException e) {
+            System.err.println("Run " + id + " failed: " + e);
+            try {
+                respond(id, new RunHarness.Result(RunHarness.Status.THREW, 1, "", "Error: " + e + "\n", 0, 0, false));
+            } catch (IOException ignored) {
+                // stdout is gone; the pool sees the worker exit
+            }
+        } finally {
+            SERVING.remove(Thread.currentThread());
+        }
+    }
+
+    private static void respond(int id, RunHarness.Result result) throws IOException {
+        synchronized (frames) {
+            frames.writeInt(id);
+            frames.writeInt(result.getStatus().ordinal());
+            frames.writeInt(result.getExitCode());
+            frames.writeBoolean(result.isRecycle());
+            CompileService.writeString(frames, result.getStdout());
+            CompileService.writeString(frames, result.getStderr());
+            frames.flush();
+        }
+    }
+
+    // Shutdown hook: runs still in progress mean student code exited the JVM where it
+    // could not be trapped, so send what they captured; the exit code is unknown
+    private static void reportExit() {
+        for (Map.Entry<Thread, RunHarness.Result> entry : RunHarness.inProgress().entrySet()) {
+            Integer id = SERVING.get(entry.getKey());
+            if (id == null) {
+                continue;
+            }
+            try {
+                respond(id, entry.getValue());
+            } catch (IOException e) {
+                return; // The pool sees the worker exit either way
+            }
+        }
+    }
+
+    // Touches the JDK classes a typical submission uses so their first run is already warm
+    private static void warmUp() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(String.format("%-12s %-12.2f $%-12.2f%n", "IBM", i * 1.5, i * 0.25));
+        }
+        Scanner scanner = new Scanner(new ByteArrayInputStream("1\n2.5\nIBM\n".getBytes(StandardCharsets.UTF_8)));
+        scanner.nextLine();
+        Double.parseDouble(scanner.nextLine());
+        scanner.nextLine().toUpperCase();
+        java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        new java.util.ArrayList<String>(java.util.Collections.singleton(text.substring(0, 10))).size();
+    }
+}
@@ -0,0 +1,357 @@
+/**
+ * Java Worker Pool
+ * Keeps a few pre-warmed RunWorker JVMs (java-service/RunWorker.java) and
+ * hands each graded run to the least busy one, so running a submission costs
+ * the student's code rather than a JVM boot. Inside a worker, RunHarness gives
+ * every run its own ClassLoader, threads and stdio and enforces the time, CPU
+ * and allocation limits, so one worker grades up to `parallelism` submissions
+ * at once. Workers are replaced after maxRunsPerWorker runs, when a run leaves
+ * a thread behind that could not be stopped, or when student code exits the JVM.
+ * After maxStartFailures workers in a row die before answering a run (e.g. no
+ * `java` on the PATH), the pool stops starting workers for startRetryDelay ms
+ * and rejects runs instead, so callers fall back to spawning java themselves.
+ */
+
+const { spawn } = require('child_process');
+const { buildService, BUILD_DIR } = require('./java-compile-client');
+
+// Status codes sent by RunWorker (RunHarness.Status ordinals)
+const RETURNED = 0;
+const THREW = 1;
+const EXITED = 2;
+const TIMED_OUT = 3;
+const CPU_LIMIT = 4;
+const MEMORY_LIMIT = 5;
+
+// Which limit a run was stopped by, by status
+const LIMITS = { [TIMED_OUT]: 'time', [CPU_LIMIT]: 'cpu', [MEMORY_LIMIT]: 'memory' };
+
+class JavaWorkerPool {
+    constructor(options = {}) {
+        this.size = options.size || 2;
+        this.maxRunsPerWorker = options.maxRunsPerWorker || 50;
+        this.parallelism = options.parallelism || 2;
+        this.timeout = options.timeout || 15000;
+        this.cpuLimit = options.cpuLimit || this.timeout;
+        // Total bytes a run may allocate over its lifetime, not its live heap
+        this.memoryLimit = options.memoryLimit || 512 * 1024 * 1024;
+        this.javaCommand = options.javaCommand || 'java';
+        this.javacCommand = options.javacCommand || 'javac';
+        this.maxStartFailures = options.maxStartFailures || 3;
+        this.startRetryDelay = options.startRetryDelay || 30000;
+        this.startFailures = 0;
+        this.lastStartError = null;
+        this.retryAt = 0;
+        this.workers = [];
+        this.queue = [];
+        this.nextId = 1;
+        this.built = null;
+    }
+
+    /**
+     * Run mainClass from classDir with the given stdin text.
+     * Resolves to { exitCode, stdout, stderr, timedOut, limit } like a finished `java` process;
+     * limit is 'time', 'cpu' or 'memory' if the run was stopped for exceeding one.
+     * Rejects only if no worker could be started, so callers can fall back to spawning java.
+     */
+    async run(classDir, mainClass, input) {
+        await this.ensureBuilt();
+        return new Promise((resolve, reject) => {
+            this.queue.push({ classDir, mainClass, input, resolve, reject });
+            this.dispatch();
+        });
+    }
+
+    /**
+     * Stop all workers; queued runs are rejected
+     */
+    close() {
+        for (const worker of this.workers) {
+            this.retire(worker, new Error('Worker pool closed'));
+        }
+        for (const task of this.queue.splice(0)) {
+            task.reject(new Error('Worker pool closed'));
+        }
+    }
+
+    async ensureBuilt() {
+        if (!this.built) {
+            this.built = buildService(this.javacCommand, 'RunWorker').catch(error => {
+                this.built = null;
+                throw error;
+            });
+        }
+        return this.built;
+    }
+
+    dispatch() {
+        while (this.queue.length > 0) {
+            let worker = this.leastBusy();
+            // Prefer a fresh worker over sharing a busy one while the pool has room
+            if (!worker || (worker.tasks.size > 0 && this.activeWorkers() < this.size)) {
+                const fresh = this.tryStartWorker();
+                if (fresh) {
+                    worker = fresh;
+                } else if (!worker) {
+                    // Nothing to run on; tryStartWorker counted the failure, so this ends
+                    if (!this.canStart()) {
+                        const error = new Error(`Run workers failed to start ${this.startFailures} times in a row`
+                            + (this.lastStartError ? `: ${this.lastStartError.message}` : ''));
+                        for (const task of this.queue.splice(0)) {
+                            task.reject(error);
+                        }
+                    }
+                    continue;
+                }
+            }
+            if (worker.tasks.size >= this.parallelism) {
+                return;
+            }
+            this.assign(worker, this.queue.shift());
+        }
+        // Keep the pool full so the next run finds a warm worker
+        while (this.activeWorkers() < this.size) {
+            if (!this.tryStartWorker()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Start a worker unless too many have failed to start in a row; returns null if none was started
+     */
+    tryStartWorker() {
+        if (!this.canStart()) {
+            return null;
+        }
+        try {
+            return this.startWorker();
+        } catch (error) {
+            this.startFailed(error);
+            return null;
+        }
+    }
+
+    canStart() {
+        return this.startFailures < this.maxStartFailures || Date.now() >= this.retryAt;
+    }
+
+    startFailed(error) {
+        this.startFailures++;
+        this.lastStartError = error;
+        if (this.startFailures >= this.maxStartFailures) {
+            const alreadyBlocked = Date.now() < this.retryAt;
+            this.retryAt = Date.now() + this.startRetryDelay;
+            if (alreadyBlocked) {
+                return;
+            }
+            console.log(`⚠️ Run workers failed to start ${this.startFailures} times in a row, retrying in ${this.startRetryDelay}ms:`,
+                error ? error.message : 'unknown error');
+        }
+    }
+
+    /**
+     * Workers still taking runs; draining ones are retired once their runs finish
+     */
+    activeWorkers() {
+        return this.workers.filter(worker => !worker.draining).length;
+    }
+
+    /**
+     * The worker with the fewest runs in progress, not counting ones being drained
+     */
+    leastBusy() {
+        let best = null;
+        for (const worker of this.workers) {
+            if (!worker.draining && (!best || worker.tasks.size < best.tasks.size)) {
+                best = worker;
+            }
+        }
+        return best;
+    }
+
+    startWorker() {
+        const child = spawn(this.javaCommand, ['-XX:+UseSerialGC', '-XX:TieredStopAtLevel=1',
+            '-Djava.security.manager=allow', '-cp', BUILD_DIR, 'RunWorker', String(this.parallelism)], {
+            stdio: ['pipe', 'pipe', 'pipe']
+        });
+        const worker = {
+            child,
+            tasks: new Map(),
+            runs: 0,
+            buffer: Buffer.alloc(0),
+            errorText: '',
+            answered: false,
+            draining: false,
+            retired: false
+        };
+        child.stdout.on('data', chunk => this.onData(worker, chunk));
+        child.stderr.on('data', chunk => this.onErrorOutput(worker, chunk));
+        child.on('exit', () => this.onWorkerStopped(worker, new Error('Run worker exited')));
+        child.on('error', error => this.onWorkerStopped(worker, error));
+        child.stdin.on('error', () => {
+            // Reported through the exit handler
+        });
+        this.workers.push(worker);
+        return worker;
+    }
+
+    assign(worker, task) {
+        task.id = this.nextId++;
+        worker.tasks.set(task.id, task);
+        worker.runs++;
+        if (worker.runs >= this.maxRunsPerWorker) {
+            worker.draining = true;
+        }
+        // Backstop in case the worker hangs without answering its own time limit
+        task.timer = setTimeout(() => {
+            this.finish(worker, task.id, {
+                exitCode: null,
+                stdout: '',
+                stderr: 'Execution timed out',
+                timedOut: true,
+                limit: 'time'
+            });
+            this.retire(worker);
+        }, this.timeout + 5000);
+        worker.child.stdin.write(Buffer.concat([
+            int32(task.id),
+            string(task.classDir),
+            string(task.mainClass),
+            string(task.input),
+            int32(this.timeout),
+            int32(this.cpuLimit),
+            int64(this.memoryLimit)
+        ]));
+    }
+
+    onData(worker, chunk) {
+        worker.buffer = worker.buffer.length === 0 ? chunk : Buffer.concat([worker.buffer, chunk]);
+        let response;
+        while ((response = parseResponse(worker.buffer)) !== null) {
+            worker.buffer = worker.buffer.subarray(response.length);
+            worker.answered = true;
+            this.startFailures = 0;
+            const limit = LIMITS[response.status] || null;
+            this.finish(worker, response.id, {
+                exitCode: limit ? null : response.exitCode,
+                stdout: response.stdout,
+                stderr: response.stderr,
+                timedOut: limit === 'time' || limit === 'cpu',
+                limit
+            });
+            // A thread left running, or an exit that could not be trapped, spoils the worker
+            if (response.recycle) {
+                worker.draining = true;
+            }
+        }
+        if (worker.draining && worker.tasks.size === 0) {
+            this.retire(worker);
+        }
+        this.dispatch();
+    }
+
+    onErrorOutput(worker, chunk) {
+        const lines = (worker.errorText + chunk.toString()).split('\n');
+        worker.errorText = lines.pop();
+        for (const line of lines) {
+            // The JVM warns at startup about the SecurityManager that traps System.exit
+            if (line && !line.startsWith('WARNING:')) {
+                console.error(`[run-worker] ${line}`);
+            }
+        }
+    }
+
+    /**
+     * The worker process exited or could not be spawned; one that never answered a run counts as a failed start
+     */
+    onWorkerStopped(worker, error) {
+        if (worker.retired) {
+            return;
+        }
+        if (!worker.answered) {
+            this.startFailed(error);
+        }
+        this.retire(worker, error);
+    }
+
+    finish(worker, id, result) {
+        const task = worker.tasks.get(id);
+        if (!task) {
+            return;
+        }
+        clearTimeout(task.timer);
+        worker.tasks.delete(id);
+        task.resolve(result);
+    }
+
+    retire(worker, reason) {
+        if (worker.retired) {
+            return;
+        }
+        worker.retired = true;
+        this.workers = this.workers.filter(candidate => candidate !== worker);
+        // Runs still in progress died without an answer, e.g. killed or out of memory
+        for (const task of worker.tasks.values()) {
+            clearTimeout(task.timer);
+            task.reject(reason || new Error('Run worker stopped'));
+        }
+        worker.tasks.clear();
+        worker.child.kill('SIGKILL');
+        if (this.queue.length > 0) {
+            this.dispatch();
+        }
+    }
+}
+
+/**
+ * Parse one response frame, or return null if it is not complete yet
+ */
+function parseResponse(buffer) {
+    let offset = 0;
+    const readString = () => {
+        if (offset + 4 > buffer.length) return null;
+        const length = buffer.readInt32BE(offset);
+        if (offset + 4 + length > buffer.length) return null;
+        const text = buffer.toString('utf8', offset + 4, offset + 4 + length);
+        offset += 4 + length;
+        return text;
+    };
+
+    if (buffer.length < 13) return null;
+    const id = buffer.readInt32BE(0);
+    const status = buffer.readInt32BE(4);
+    const exitCode = buffer.readInt32BE(8);
+    const recycle = buffer[12] !== 0;
+    offset = 13;
+    const stdout = readString();
+    if (stdout === null) return null;
+    const stderr = readString();
+    if (stderr === null) return null;
+    return { id, status, exitCode, recycle, stdout, stderr, length: offset };
+}
+
+function int32(value) {
+    const buffer = Buffer.alloc(4);
+    buffer.writeInt32BE(value);
+    return buffer;
+}
+
+function int64(value) {
+    const buffer = Buffer.alloc(8);
+    buffer.writeBigInt64BE(BigInt(value));
+    return buffer;
+}
+
+function string(text) {
+    const bytes = Buffer.from(text, 'utf8');
+    return Buffer.concat([int32(bytes.length), bytes]);
+}
+
+module.exports = JavaWorkerPool;
+module.exports.RETURNED = RETURNED;
+module.exports.THREW = THREW;
+module.exports.EXITED = EXITED;
+module.exports.TIMED_OUT = TIMED_OUT;
+module.exports.CPU_LIMIT = CPU_LIMIT;
+module.exports.MEMORY_LIMIT = MEMORY_LIMIT;
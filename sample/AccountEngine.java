@@ -0,0 +1,129 @@
+/**
+ * AccountEngine.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Hosts many BrokerageAccounts in one JVM. Accounts live in a ConcurrentHashMap
+ * and writes are serialized per account through a fixed set of striped locks,
+ * chosen by account id hash. Operations on accounts that land on different
+ * stripes never wait on each other, and there is no engine-wide lock. Only
+ * deposits create an account; reads and commands that can only fail on an
+ * empty account leave unknown ids alone.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+public class AccountEngine {
+    private final ConcurrentHashMap<String, BrokerageAccount> accounts = new ConcurrentHashMap<String, BrokerageAccount>();
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+
+    public AccountEngine() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    // stripeCount is rounded up to a power of two
+    public AccountEngine(int stripeCount) {
+        int count = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        stripeMask = count - 1;
+    }
+
+    public BrokerageAccount.Result deposit(String accountId, double amount) {
+        long units = Money.toUnits(amount);
+        return withAccount(accountId, account -> account.deposit(units));
+    }
+
+    public BrokerageAccount.Result withdraw(String accountId, double amount) {
+        long units = Money.toUnits(amount);
+        // An account that doesn't exist has no cash, so there is nothing to create it for
+        BrokerageAccount.Result missing = units <= 0
+            ? BrokerageAccount.Result.INVALID_AMOUNT : BrokerageAccount.Result.INSUFFICIENT_FUNDS;
+        return withExistingAccount(accountId, account -> account.withdraw(units), missing);
+    }
+
+    public BrokerageAccount.Result buy(String accountId, String ticker, double quantity, double price) {
+        String symbol = SymbolTable.canonical(ticker);
+        long quantityUnits = Money.toUnits(quantity);
+        long priceUnits = Money.toUnits(price);
+        // An account that doesn't exist has no cash to buy with, so it isn't created, and the
+        // ticker is only registered in the SymbolTable once there is an account to buy it
+        BrokerageAccount.Result missing = quantityUnits <= 0 || priceUnits <= 0 || symbol.equals("CASH")
+            ? BrokerageAccount.Result.INVALID_AMOUNT : BrokerageAccount.Result.INSUFFICIENT_FUNDS;
+        return withExistingAccount(accountId,
+            account -> account.buy(SymbolTable.id(symbol), quantityUnits, priceUnits), missing);
+    }
+
+    public BrokerageAccount.Result sell(String accountId, String ticker, double quantity, double price) {
+        // A ticker nobody has bought can't be held, so it isn't registered here, and an
+        // account that doesn't exist holds nothing
+        int symbolId = SymbolTable.lookup(SymbolTable.canonical(ticker));
+        long quantityUnits = Money.toUnits(quantity);
+        long priceUnits = Money.toUnits(price);
+        BrokerageAccount.Result missing = quantityUnits <= 0 || priceUnits <= 0 || symbolId == SymbolTable.CASH
+            ? BrokerageAccount.Result.INVALID_AMOUNT : BrokerageAccount.Result.INSUFFICIENT_SHARES;
+        if (symbolId < 0) {
+            return missing;
+        }
+        return withExistingAccount(accountId, account -> account.sell(symbolId, quantityUnits, priceUnits), missing);
+    }
+
+    public double getCash(String accountId) {
+        return getBalance(accountId, "CASH");
+    }
+
+    public double getBalance(String accountId, String ticker) {
+        int symbolId = SymbolTable.lookup(SymbolTable.canonical(ticker));
+        if (symbolId < 0) {
+            return 0;
+        }
+        return Money.toDouble(withExistingAccount(accountId, account -> account.getBalanceUnits(symbolId), 0L));
+    }
+
+    // Runs work against one account while holding its stripe lock, creating the account on first use
+    public <T> T withAccount(String accountId, Function<BrokerageAccount, T> work) {
+        ReentrantLock lock = stripeFor(accountId);
+        lock.lock();
+        try {
+            BrokerageAccount account = accounts.get(accountId);
+            if (account == null) {
+                account = accounts.computeIfAbsent(accountId, BrokerageAccount::new);
+            }
+            return work.apply(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Like withAccount, but returns missing instead of creating an account that doesn't exist,
+    // so reads and commands that can only fail on an empty account don't grow the engine
+    public <T> T withExistingAccount(String accountId, Function<BrokerageAccount, T> work, T missing) {
+        ReentrantLock lock = stripeFor(accountId);
+        lock.lock();
+        try {
+            BrokerageAccount account = accounts.get(accountId);
+            return account == null ? missing : work.apply(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasAccount(String accountId) {
+        return accounts.containsKey(accountId);
+    }
+
+    public int accountCount() {
+        return accounts.size();
+    }
+
+    private ReentrantLock stripeFor(String accountId) {
+        int hash = accountId.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[hash & stripeMask];
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * BrokerageAccount.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * One brokerage account: its own columnar ledger plus a balance index holding
+ * the Money units of every symbol, indexed by SymbolTable id. Deposits,
+ * withdrawals, buys and sells follow the same rules and record the same rows
+ * as PortfolioManager (a trade writes a stock leg and a cash leg). Each held
+ * symbol also has a LotBook, so sells realize gains under the account's
+ * cost-basis policy (FIFO unless chosen otherwise).
+ *
+ * An account is not thread-safe on its own; AccountEngine makes sure only one
+ * thread works on a given account at a time.
+ */
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+public class BrokerageAccount {
+    // Outcome of an operation
+    public enum Result {
+        OK,
+        INVALID_AMOUNT,
+        INSUFFICIENT_FUNDS,
+        INSUFFICIENT_SHARES,
+        INVALID_COMMAND,
+        // The command threw unexpectedly; set by OrderPipeline, never by the account
+        FAILED
+    }
+
+    private static final long ONE = Money.SCALE;
+
+    // Today's epoch day and when it ends, shared by all accounts so the
+    // clock and time zone are only consulted once a day
+    private static volatile int today;
+    private static volatile long todayEndsAt;
+
+    private final String accountId;
+    private final TransactionLedger ledger;
+    private final LotBook.Policy lotPolicy;
+
+    // Balance in Money units per SymbolTable id
+    private long[] balances = new long[16];
+
+    // Open lots per SymbolTable id, created on the first buy
+    private LotBook[] lotBooks = new LotBook[16];
+    private long realizedGain;
+
+    public BrokerageAccount(String accountId) {
+        this(accountId, LotBook.Policy.FIFO);
+    }
+
+    public BrokerageAccount(String accountId, LotBook.Policy lotPolicy) {
+        this.accountId = accountId;
+        this.ledger = new TransactionLedger(64);
+        this.lotPolicy = lotPolicy;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public TransactionLedger getLedger() {
+        return ledger;
+    }
+
+    public long getBalanceUnits(int symbolId) {
+        return symbolId < balances.length ? balances[symbolId] : 0;
+    }
+
+    public long getCashUnits() {
+        return getBalanceUnits(SymbolTable.CASH);
+    }
+
+    public LotBook.Policy getLotPolicy() {
+        return lotPolicy;
+    }
+
+    // Open lots for a symbol, or null if it was never bought
+    public LotBook getLotBook(int symbolId) {
+        return symbolId < lotBooks.length ? lotBooks[symbolId] : null;
+    }
+
+    // Gain realized by every sell so far, in Money units
+    public long getRealizedGainUnits() {
+        return realizedGain;
+    }
+
+    // Gain on the open lots of one symbol if they were sold at marketPrice
+    public long getUnrealizedGainUnits(int symbolId, long marketPrice) {
+        LotBook lots = getLotBook(symbolId);
+        return lots == null ? 0 : lots.getUnrealizedGain(marketPrice);
+    }
+
+    public Result deposit(long amount) {
+        if (amount <= 0 || amount > Long.MAX_VALUE - getCashUnits()) {
+            return Result.INVALID_AMOUNT;
+        }
+        record(SymbolTable.CASH, TransactionLedger.DEPOSIT, amount, ONE);
+        return Result.OK;
+    }
+
+    public Result withdraw(long amount) {
+        if (amount <= 0) {
+            return Result.INVALID_AMOUNT;
+        }
+        if (amount > getCashUnits()) {
+            return Result.INSUFFICIENT_FUNDS;
+        }
+        record(SymbolTable.CASH, TransactionLedger.WITHDRAW, -amount, ONE);
+        return Result.OK;
+    }
+
+    public Result buy(int symbolId, long quantity, long price) {
+        if (quantity <= 0 || price <= 0 || symbolId == SymbolTable.CASH) {
+            return Result.INVALID_AMOUNT;
+        }
+        long totalCost = total(quantity, price);
+        if (totalCost < 0 || quantity > Long.MAX_VALUE - getBalanceUnits(symbolId)) {
+            return Result.INVALID_AMOUNT;
+        }
+        if (totalCost > getCashUnits()) {
+            return Result.INSUFFICIENT_FUNDS;
+        }
+        record(symbolId, TransactionLedger.BUY, quantity, price);
+        record(SymbolTable.CASH, TransactionLedger.WITHDRAW, -totalCost, ONE);
+        lotBookFor(symbolId).buy(quantity, price);
+        return Result.OK;
+    }
+
+    public Result sell(int symbolId, long quantity, long price) {
+        if (quantity <= 0 || price <= 0 || symbolId == SymbolTable.CASH) {
+            return Result.INVALID_AMOUNT;
+        }
+        if (quantity > getBalanceUnits(symbolId)) {
+            return Result.INSUFFICIENT_SHARES;
+        }
+        // Checked before either leg is recorded, so a trade is never half applied
+        long proceeds = total(quantity, price);
+        if (proceeds < 0 || proceeds > Long.MAX_VALUE - getCashUnits()) {
+            return Result.INVALID_AMOUNT;
+        }
+        record(symbolId, TransactionLedger.SELL, -quantity, price);
+        record(SymbolTable.CASH, TransactionLedger.DEPOSIT, proceeds, ONE);
+        realizedGain += lotBookFor(symbolId).sell(quantity, price);
+        return Result.OK;
+    }
+
+    // quantity * price in units, or -1 if it does not fit in a long
+    private static long total(long quantity, long price) {
+        try {
+            return Money.multiply(quantity, price);
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private void record(int symbolId, byte typeCode, long quantity, long costBasis) {
+        ledger.appendUnits(symbolId, currentEpochDay(), typeCode, quantity, costBasis);
+        if (symbolId >= balances.length) {
+            balances = Arrays.copyOf(balances, Math.max(symbolId + 1, balances.length * 2));
+        }
+        balances[symbolId] += quantity;
+    }
+
+    private LotBook lotBookFor(int symbolId) {
+        if (symbolId >= lotBooks.length) {
+            lotBooks = Arrays.copyOf(lotBooks, Math.max(symbolId + 1, lotBooks.length * 2));
+        }
+        if (lotBooks[symbolId] == null) {
+            lotBooks[symbolId] = new LotBook(lotPolicy);
+        }
+        return lotBooks[symbolId];
+    }
+
+    private static int currentEpochDay() {
+        if (System.currentTimeMillis() >= todayEndsAt) {
+            LocalDate date = LocalDate.now();
+            today = (int) date.toEpochDay();
+            todayEndsAt = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return today;
+    }
+}
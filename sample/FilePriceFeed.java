@@ -0,0 +1,149 @@
+/**
+ * FilePriceFeed.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Replays prices from a local file, in file order. Two formats are accepted:
+ *   - CSV, one "TICKER,price" tick per line; blank lines, # comments and a
+ *     header line whose price is not a number are skipped
+ *   - binary, starting with the magic "PPF1", then one record per tick:
+ *     [byte ticker length][ticker bytes, US-ASCII][long price in Money units]
+ * The format is picked from the first four bytes of the file.
+ *
+ * Usage: java FilePriceFeed prices.csv prices.bin   (converts CSV to binary)
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class FilePriceFeed implements PriceFeed {
+    private static final byte[] MAGIC = "PPF1".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path file;
+
+    public FilePriceFeed(Path file) {
+        this.file = file;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 2) {
+            System.out.println("Usage: java FilePriceFeed <prices.csv> <prices.bin>");
+            return;
+        }
+        long count = toBinary(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println("Wrote " + count + " prices to " + args[1]);
+    }
+
+    @Override
+    public void run(Listener listener) throws IOException, InterruptedException {
+        if (isBinary(file)) {
+            readBinary(listener);
+        } else {
+            readCsv(listener);
+        }
+    }
+
+    // Converts a CSV price file to the binary format; returns the number of ticks.
+    // A ticker that does not fit the one-byte ASCII length field is rejected
+    public static long toBinary(Path csv, Path binary) throws IOException, InterruptedException {
+        long[] count = new long[1];
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(binary)))) {
+            data.write(MAGIC);
+            IOException[] failure = new IOException[1];
+            new FilePriceFeed(csv).readCsv((symbolId, price) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    String name = SymbolTable.name(symbolId);
+                    if (!StandardCharsets.US_ASCII.newEncoder().canEncode(name) || name.length() > 255) {
+                        throw new IOException(csv + ": ticker cannot be written as binary: " + name);
+                    }
+                    byte[] ticker = name.getBytes(StandardCharsets.US_ASCII);
+                    data.writeByte(ticker.length);
+                    data.write(ticker);
+                    data.writeLong(price);
+                    count[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        return count[0];
+    }
+
+    private static boolean isBinary(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = new byte[MAGIC.length];
+            return in.readNBytes(header, 0, header.length) == header.length && Arrays.equals(header, MAGIC);
+        }
+    }
+
+    private void readCsv(Listener listener) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma <= 0) {
+                    throw new IOException(file + ":" + lineNumber + ": expected TICKER,price");
+                }
+                long price;
+                try {
+                    price = Money.parse(line.substring(comma + 1));
+                } catch (NumberFormatException e) {
+                    if (lineNumber == 1) {
+                        continue; // header
+                    }
+                    throw new IOException(file + ":" + lineNumber + ": bad price", e);
+                }
+                listener.onPrice(SymbolTable.parse(line.substring(0, comma)), price);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    private void readBinary(Listener listener) throws IOException, InterruptedException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            data.skipBytes(MAGIC.length);
+            byte[] ticker = new byte[255];
+            while (true) {
+                int length = data.read();
+                if (length < 0) {
+                    return;
+                }
+                try {
+                    data.readFully(ticker, 0, length);
+                    long price = data.readLong();
+                    listener.onPrice(SymbolTable.parse(new String(ticker, 0, length, StandardCharsets.US_ASCII)), price);
+                } catch (EOFException e) {
+                    throw new IOException(file + ": truncated price record", e);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * HistoryPager.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Pages through a TransactionLedger newest first instead of dumping it all at
+ * once. A cursor can start at the newest row, at the newest row on or before a
+ * date, or at the newest row for a ticker; each page only reads its own rows,
+ * so the first page costs the same whatever the size of the ledger. Pages are
+ * rendered with the same header and row layout as PortfolioManager's history.
+ */
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class HistoryPager {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    private final TransactionLedger ledger;
+    private final int pageSize;
+
+    public HistoryPager(TransactionLedger ledger) {
+        this(ledger, DEFAULT_PAGE_SIZE);
+    }
+
+    public HistoryPager(TransactionLedger ledger, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.ledger = ledger;
+        this.pageSize = pageSize;
+    }
+
+    // All rows, newest first
+    public Cursor newest() {
+        int newestRow = ledger.size() - 1;
+        return new Cursor(new PrimitiveIterator.OfInt() {
+            private int next = newestRow;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                return next--;
+            }
+        });
+    }
+
+    // Dated rows on or before the given day, newest first
+    public Cursor seekDate(LocalDate date) {
+        return new Cursor(ledger.getIndex().rowsOnOrBeforeNewestFirst((int) date.toEpochDay()));
+    }
+
+    // Rows for one ticker, newest first
+    public Cursor seekTicker(String ticker) {
+        return new Cursor(ledger.getIndex().rowsForTickerNewestFirst(ledger.tickerId(SymbolTable.canonical(ticker))));
+    }
+
+    // Position in a newest-first walk over the ledger; rows added after the
+    // cursor was created are not included
+    public class Cursor {
+        private final PrimitiveIterator.OfInt rows;
+        private int pageNumber;
+
+        private Cursor(PrimitiveIterator.OfInt rows) {
+            this.rows = rows;
+        }
+
+        public boolean hasNext() {
+            return rows.hasNext();
+        }
+
+        // 1-based number of the last page returned
+        public int getPageNumber() {
+            return pageNumber;
+        }
+
+        public List<TransactionHistory> nextPage() {
+            List<TransactionHistory> page = new ArrayList<TransactionHistory>(pageSize);
+            while (page.size() < pageSize && rows.hasNext()) {
+                page.add(ledger.get(rows.nextInt()));
+            }
+            if (!page.isEmpty()) {
+                pageNumber++;
+            }
+            return page;
+        }
+
+        // Next page as display text, in the layout of PortfolioManager's history
+        public String renderNextPage(String accountName) {
+            List<TransactionHistory> page = nextPage();
+            StringBuilder sb = new StringBuilder(128 + page.size() * 80);
+            String lineSeparator = System.lineSeparator();
+            sb.append(lineSeparator).append(accountName).append(" Brokerage Account").append(lineSeparator);
+            sb.append("====================================").append(lineSeparator);
+            sb.append(lineSeparator);
+            sb.append(String.format("%-12s %-12s %-12s %-12s %-12s%n",
+                "Date", "Ticker", "Quantity", "Cost Basis", "Trans Type"));
+            sb.append("================================================================").append(lineSeparator);
+            for (TransactionHistory transaction : page) {
+                transaction.appendTo(sb).append(lineSeparator);
+            }
+            if (page.isEmpty()) {
+                sb.append(pageNumber == 0 ? "No transactions found." : "No more transactions.").append(lineSeparator);
+            } else {
+                sb.append("Page ").append(pageNumber).append(hasNext() ? " (more)" : " (end)").append(lineSeparator);
+            }
+            return sb.toString();
+        }
+    }
+}
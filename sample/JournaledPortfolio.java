@@ -0,0 +1,148 @@
+/**
+ * JournaledPortfolio.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Runs the PortfolioManager menu with its ledger kept in a LedgerJournal file,
+ * so the book survives restarts. Every new transaction is appended to the journal,
+ * with the stock and cash legs of a trade in one frame so a crash never replays half of it.
+ * Interactively, each transaction is forced to disk before it is reported as done. In
+ * batch mode records are group committed and everything is committed when the batch
+ * ends, so a crash mid-batch can lose the last group of commands.
+ * A LedgerSnapshot of the balances is written beside the journal every
+ * SNAPSHOT_INTERVAL records and on exit. Startup loads the latest snapshot and
+ * replays only the journal tail after it, so it stays fast however long the
+ * history is. Older rows are read only if the transaction history is displayed.
+ *
+ * Usage: java JournaledPortfolio [journal file] [--batch [command file]]
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class JournaledPortfolio {
+    public static final String DEFAULT_JOURNAL = "portfolio.journal";
+
+    // Journal records between automatic snapshots
+    public static final int SNAPSHOT_INTERVAL = 10000;
+
+    private final PortfolioManager portfolio;
+    private final LedgerJournal journal;
+    private final Path snapshotFile;
+    private int recordsSinceSnapshot;
+
+    // When set, each record is on disk before the listener returns
+    private boolean durable = true;
+
+    public JournaledPortfolio(PortfolioManager portfolio, LedgerJournal journal, Path snapshotFile) {
+        this.portfolio = portfolio;
+        this.journal = journal;
+        this.snapshotFile = snapshotFile;
+    }
+
+    // Turn off to group commit, e.g. for a batch whose results are only reported at the end
+    public void setDurable(boolean durable) {
+        this.durable = durable;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int next = 0;
+        Path journalFile = Paths.get(DEFAULT_JOURNAL);
+        if (args.length > next && !args[next].startsWith("--")) {
+            journalFile = Paths.get(args[next++]);
+        }
+        boolean batch = args.length > next && args[next].equals("--batch");
+        String commandFile = batch && args.length > next + 1 ? args[next + 1] : null;
+
+        PortfolioManager portfolio = new PortfolioManager();
+        try (LedgerJournal journal = LedgerJournal.open(journalFile)) {
+            JournaledPortfolio journaled = new JournaledPortfolio(portfolio, journal,
+                journalFile.resolveSibling(journalFile.getFileName() + ".snapshot"));
+            long startTime = System.nanoTime();
+            String restored = journaled.restore();
+            System.out.println(restored + " in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+
+            portfolio.setTransactionListener(new PortfolioManager.TransactionListener() {
+                @Override
+                public void transactionAdded(TransactionHistory transaction) {
+                    journaled.record(transaction);
+                }
+
+                @Override
+                public void transactionsAdded(TransactionHistory... transactions) {
+                    journaled.record(transactions);
+                }
+            });
+            if (batch) {
+                journaled.setDurable(false);
+                portfolio.runBatch(commandFile);
+            } else {
+                portfolio.run();
+            }
+            journaled.writeSnapshot();
+        }
+    }
+
+    // Loads the snapshot if there is a usable one, then replays the journal after it
+    public String restore() throws IOException {
+        LedgerSnapshot snapshot = LedgerSnapshot.load(snapshotFile);
+        if (snapshot == null || snapshot.getJournalOffset() > journal.committedOffset()) {
+            long count = journal.replay(portfolio::restoreTransaction);
+            return "Restored " + count + " transactions from " + journal.getFile();
+        }
+
+        for (Map.Entry<String, Long> position : snapshot.getPositions().entrySet()) {
+            portfolio.restorePosition(position.getKey(), position.getValue());
+        }
+        long tail = journal.replay(snapshot.getJournalOffset(), portfolio::restoreTransaction);
+
+        long snapshotOffset = snapshot.getJournalOffset();
+        portfolio.setEarlierHistory(() -> {
+            List<TransactionHistory> earlier = new ArrayList<TransactionHistory>();
+            try {
+                journal.replay(0, snapshotOffset, earlier::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return earlier;
+        });
+        return "Restored snapshot of " + snapshot.getRecordCount() + " transactions plus " + tail
+            + " from " + journal.getFile();
+    }
+
+    // Journals the rows of one operation together. A journal failure is thrown (as
+    // UncheckedIOException) so PortfolioManager takes the rows back out; a snapshot failure
+    // is not, since the rows are already in the journal and the snapshot only speeds up startup
+    private void record(TransactionHistory... transactions) {
+        if (durable) {
+            try {
+                journal.appendDurably(transactions);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            journal.transactionsAdded(transactions);
+        }
+        recordsSinceSnapshot += transactions.length;
+        if (recordsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+            try {
+                writeSnapshot();
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Snapshot not written, will retry later: " + e.getMessage());
+                recordsSinceSnapshot = 0;
+            }
+        }
+    }
+
+    public void writeSnapshot() throws IOException {
+        journal.commit();
+        new LedgerSnapshot(journal.committedOffset(), journal.recordCount(), portfolio.getPositions())
+            .write(snapshotFile);
+        recordsSinceSnapshot = 0;
+    }
+}
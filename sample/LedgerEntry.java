@@ -0,0 +1,107 @@
+/**
+ * LedgerEntry.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * An immutable ledger row. It holds the same five values as TransactionHistory
+ * and has the same getters, but every field is final and amounts are kept as
+ * exact Money units. Entries can be shared between threads and used as map
+ * keys without copying; the hash code is computed once.
+ * Use of(...) and toTransactionHistory() to convert to and from the mutable bean.
+ */
+
+import java.util.Objects;
+
+public final class LedgerEntry {
+    private final String ticker;
+    private final String transDate;
+    private final String transType;
+    private final long qtyUnits;
+    private final long costBasisUnits;
+    private final int hash;
+
+    public LedgerEntry(String ticker, String transDate, String transType, long qtyUnits, long costBasisUnits) {
+        this.ticker = Objects.requireNonNull(ticker, "ticker");
+        this.transDate = Objects.requireNonNull(transDate, "transDate");
+        this.transType = Objects.requireNonNull(transType, "transType");
+        this.qtyUnits = qtyUnits;
+        this.costBasisUnits = costBasisUnits;
+        int h = ticker.hashCode();
+        h = 31 * h + transDate.hashCode();
+        h = 31 * h + transType.hashCode();
+        h = 31 * h + Long.hashCode(qtyUnits);
+        this.hash = 31 * h + Long.hashCode(costBasisUnits);
+    }
+
+    public static LedgerEntry of(TransactionHistory transaction) {
+        return new LedgerEntry(transaction.getTicker(), transaction.getTransDate(), transaction.getTransType(),
+            Money.toUnits(transaction.getQty()), Money.toUnits(transaction.getCostBasis()));
+    }
+
+    // Getters with the same names and types as TransactionHistory
+    public String getTicker() {
+        return ticker;
+    }
+
+    public String getTransDate() {
+        return transDate;
+    }
+
+    public String getTransType() {
+        return transType;
+    }
+
+    public double getQty() {
+        return Money.toDouble(qtyUnits);
+    }
+
+    public double getCostBasis() {
+        return Money.toDouble(costBasisUnits);
+    }
+
+    public long getQtyUnits() {
+        return qtyUnits;
+    }
+
+    public long getCostBasisUnits() {
+        return costBasisUnits;
+    }
+
+    // A new entry differing only in quantity, in place of a setter
+    public LedgerEntry withQtyUnits(long units) {
+        return new LedgerEntry(ticker, transDate, transType, units, costBasisUnits);
+    }
+
+    public LedgerEntry withCostBasisUnits(long units) {
+        return new LedgerEntry(ticker, transDate, transType, qtyUnits, units);
+    }
+
+    // A mutable copy for code that still takes TransactionHistory
+    public TransactionHistory toTransactionHistory() {
+        return new TransactionHistory(ticker, transDate, transType, getQty(), getCostBasis());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LedgerEntry)) {
+            return false;
+        }
+        LedgerEntry other = (LedgerEntry) obj;
+        return hash == other.hash && qtyUnits == other.qtyUnits && costBasisUnits == other.costBasisUnits
+            && ticker.equals(other.ticker) && transDate.equals(other.transDate) && transType.equals(other.transType);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    // Same layout as TransactionHistory.toString()
+    @Override
+    public String toString() {
+        return toTransactionHistory().toString();
+    }
+}
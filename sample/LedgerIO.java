@@ -0,0 +1,757 @@
+/**
+ * LedgerIO.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Bulk import and export of a TransactionLedger, as CSV or a compact binary file.
+ *
+ * CSV has one row per line: Ticker,Date,Type,Quantity,CostBasis, with an optional
+ * header line starting with "Ticker". Lines are parsed straight out of the read
+ * buffer: numbers go to Money units and MM/dd/yyyy dates to epoch days without
+ * building Strings, and tickers and types are matched by their bytes against a
+ * small cache. Parsed rows are collected in column arrays and handed to the
+ * ledger in batches of BATCH_SIZE.
+ *
+ * The binary file starts with the magic "PLB1" and holds blocks of up to
+ * BATCH_SIZE rows:
+ *   [int block length][int rows]
+ *   [int new tickers]  ([short length][UTF-8 bytes])...   file-local ids in order
+ *   [int new types]    ([short length][UTF-8 bytes])...
+ *   [int raw dates]    ([int row in block][short length][UTF-8 bytes])...
+ *   [int ticker ids][int epoch days][byte type ids][long qty units][long cost basis units]
+ * each column holding one value per row. Loading a block is a few bulk copies.
+ *
+ * Usage: java LedgerIO <input.csv|input.plb> <output.csv|output.plb>
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+public final class LedgerIO {
+    public static final int BATCH_SIZE = 65536;
+
+    private static final byte[] MAGIC = "PLB1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CSV_HEADER = "Ticker,Date,Type,Quantity,CostBasis\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/uuuu");
+
+    private LedgerIO() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java LedgerIO <input.csv|input.plb> <output.csv|output.plb>");
+            return;
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        TransactionLedger ledger = new TransactionLedger();
+
+        long startTime = System.nanoTime();
+        long rows = isCsv(input) ? importCsv(input, ledger) : importBinary(input, ledger);
+        long loaded = System.nanoTime();
+        if (isCsv(output)) {
+            exportCsv(ledger, output);
+        } else {
+            exportBinary(ledger, output);
+        }
+        long written = System.nanoTime();
+        System.out.println("Loaded " + rows + " rows in " + (loaded - startTime) / 1000000 + " ms, wrote "
+            + output + " in " + (written - loaded) / 1000000 + " ms");
+    }
+
+    // ---- CSV ----
+
+    // Appends every row of a CSV file to the ledger; returns the number of rows read
+    public static long importCsv(Path file, TransactionLedger ledger) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvParser parser = new CsvParser(file, ledger);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            boolean eof = false;
+            while (!eof) {
+                eof = channel.read(buffer) < 0;
+                buffer.flip();
+                byte[] data = buffer.array();
+                int limit = buffer.limit();
+                int position = 0;
+                while (position < limit) {
+                    int end = indexOf(data, position, limit, (byte) '\n');
+                    if (end < 0) {
+                        if (!eof) {
+                            break;
+                        }
+                        end = limit;
+                    }
+                    parser.parseLine(data, position, end);
+                    position = end + 1;
+                }
+                buffer.position(Math.min(position, limit));
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    // A single line longer than the buffer
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+            }
+            parser.flush();
+            return parser.rows;
+        }
+    }
+
+    public static void exportCsv(TransactionLedger ledger, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.put(CSV_HEADER);
+            byte[][] tickerBytes = new byte[64][];
+            byte[][] typeBytes = new byte[Byte.MAX_VALUE + 1][];
+            int lastDay = TransactionLedger.RAW_DATE;
+            byte[] lastDateBytes = null;
+
+            for (int row = 0; row < ledger.size(); row++) {
+                int tickerId = ledger.getTickerId(row);
+                if (tickerId >= tickerBytes.length) {
+                    tickerBytes = Arrays.copyOf(tickerBytes, Math.max(tickerId + 1, tickerBytes.length * 2));
+                }
+                if (tickerBytes[tickerId] == null) {
+                    tickerBytes[tickerId] = csvField(ledger.getTicker(row));
+                }
+                byte typeCode = ledger.getTypeCode(row);
+                if (typeBytes[typeCode] == null) {
+                    typeBytes[typeCode] = csvField(ledger.getTransType(row));
+                }
+                int epochDay = ledger.getEpochDay(row);
+                byte[] date;
+                if (epochDay == TransactionLedger.RAW_DATE) {
+                    date = csvField(rawDate(ledger, row));
+                } else {
+                    if (epochDay != lastDay) {
+                        lastDateBytes = DATE_FORMAT.format(LocalDate.ofEpochDay(epochDay)).getBytes(StandardCharsets.US_ASCII);
+                        lastDay = epochDay;
+                    }
+                    date = lastDateBytes;
+                }
+
+                int needed = tickerBytes[tickerId].length + date.length + typeBytes[typeCode].length + 64;
+                if (buffer.remaining() < needed) {
+                    writeFully(channel, buffer);
+                    if (buffer.capacity() < needed) {
+                        buffer = ByteBuffer.allocate(needed);
+                    }
+                }
+                buffer.put(tickerBytes[tickerId]).put((byte) ',');
+                buffer.put(date).put((byte) ',');
+                buffer.put(typeBytes[typeCode]).put((byte) ',');
+                putUnits(buffer, ledger.getQtyUnits(row));
+                buffer.put((byte) ',');
+                putUnits(buffer, ledger.getCostBasisUnits(row));
+                buffer.put((byte) '\n');
+            }
+            writeFully(channel, buffer);
+        }
+    }
+
+    // ---- Binary ----
+
+    public static long importBinary(Path file, TransactionLedger ledger) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            if (!readFully(channel, header) || !Arrays.equals(header.array(), MAGIC)) {
+                throw new IOException(file + ": not a binary ledger file");
+            }
+            Batch batch = new Batch();
+            int[] symbolIds = new int[64];
+            int symbolCount = 0;
+            byte[] typeCodes = new byte[Byte.MAX_VALUE + 1];
+            int typeCount = 0;
+            ByteBuffer length = ByteBuffer.allocate(4);
+            ByteBuffer block = ByteBuffer.allocate(BUFFER_SIZE);
+            long rows = 0;
+
+            while (true) {
+                length.clear();
+                if (!readFully(channel, length)) {
+                    if (length.position() == 0) {
+                        break;
+                    }
+                    throw new IOException(file + ": truncated block after row " + rows);
+                }
+                int blockLength = length.getInt(0);
+                if (blockLength < 8 || blockLength > channel.size() - channel.position()) {
+                    throw corrupt(file, rows);
+                }
+                if (blockLength > block.capacity()) {
+                    block = ByteBuffer.allocate(blockLength);
+                }
+                block.clear().limit(blockLength);
+                if (!readFully(channel, block)) {
+                    throw new IOException(file + ": truncated block after row " + rows);
+                }
+                block.flip();
+
+                // Every count and length is checked against the bytes left in the block,
+                // so a damaged file fails with an IOException rather than a bad index
+                int count = block.getInt();
+                for (int i = block.getInt(); i > 0; i--) {
+                    if (symbolCount == symbolIds.length) {
+                        symbolIds = Arrays.copyOf(symbolIds, symbolCount * 2);
+                    }
+                    symbolIds[symbolCount++] = SymbolTable.id(getString(block, file, rows));
+                }
+                checkRemaining(block, 4, file, rows);
+                for (int i = block.getInt(); i > 0; i--) {
+                    if (typeCount == typeCodes.length) {
+                        throw corrupt(file, rows);
+                    }
+                    typeCodes[typeCount++] = ledger.typeCode(getString(block, file, rows));
+                }
+                checkRemaining(block, 4, file, rows);
+                int rawCount = block.getInt();
+                checkRemaining(block, rawCount * 6L, file, rows);
+                int[] rawRows = new int[rawCount];
+                String[] rawDates = new String[rawCount];
+                for (int i = 0; i < rawCount; i++) {
+                    checkRemaining(block, 4, file, rows);
+                    rawRows[i] = block.getInt();
+                    // Raw rows are listed in order, each within the block
+                    if (rawRows[i] < (i == 0 ? 0 : rawRows[i - 1] + 1) || rawRows[i] >= count) {
+                        throw corrupt(file, rows);
+                    }
+                    rawDates[i] = getString(block, file, rows);
+                }
+                if (count < 0 || block.remaining() != count * 25L) {
+                    throw corrupt(file, rows);
+                }
+
+                batch.ensureCapacity(count);
+                getInts(block, batch.tickerIds, count);
+                getInts(block, batch.epochDays, count);
+                block.get(batch.typeCodes, 0, count);
+                getLongs(block, batch.qty, count);
+                getLongs(block, batch.costBasis, count);
+                for (int i = 0; i < count; i++) {
+                    if (batch.tickerIds[i] < 0 || batch.tickerIds[i] >= symbolCount
+                            || batch.typeCodes[i] < 0 || batch.typeCodes[i] >= typeCount) {
+                        throw corrupt(file, rows);
+                    }
+                    batch.tickerIds[i] = symbolIds[batch.tickerIds[i]];
+                    batch.typeCodes[i] = typeCodes[batch.typeCodes[i]];
+                }
+
+                // Rows with a raw date go in one at a time, everything between them in bulk
+                int from = 0;
+                for (int i = 0; i < rawCount; i++) {
+                    int row = rawRows[i];
+                    ledger.appendBatch(batch.tickerIds, batch.epochDays, batch.typeCodes, batch.qty, batch.costBasis, from, row);
+                    ledger.appendUnits(batch.tickerIds[row], rawDates[i], batch.typeCodes[row], batch.qty[row], batch.costBasis[row]);
+                    from = row + 1;
+                }
+                ledger.appendBatch(batch.tickerIds, batch.epochDays, batch.typeCodes, batch.qty, batch.costBasis, from, count);
+                rows += count;
+            }
+            return rows;
+        }
+    }
+
+    public static void exportBinary(TransactionLedger ledger, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.allocate(MAGIC.length).put(MAGIC));
+            // File-local ids by SymbolTable id and by ledger type code, -1 until first written
+            int[] localSymbols = new int[64];
+            Arrays.fill(localSymbols, -1);
+            int symbolCount = 0;
+            int[] localTypes = new int[Byte.MAX_VALUE + 1];
+            Arrays.fill(localTypes, -1);
+            int typeCount = 0;
+            ByteBuffer block = ByteBuffer.allocate(BUFFER_SIZE);
+
+            for (int first = 0; first < ledger.size(); first += BATCH_SIZE) {
+                int count = Math.min(BATCH_SIZE, ledger.size() - first);
+                ByteBuffer names = ByteBuffer.allocate(256);
+                int newSymbols = 0;
+                int newTypes = 0;
+                ByteBuffer typeNames = ByteBuffer.allocate(256);
+                ByteBuffer raw = ByteBuffer.allocate(256);
+                int rawCount = 0;
+
+                for (int row = first; row < first + count; row++) {
+                    int tickerId = ledger.getTickerId(row);
+                    if (tickerId >= localSymbols.length) {
+                        int oldLength = localSymbols.length;
+                        localSymbols = Arrays.copyOf(localSymbols, Math.max(tickerId + 1, oldLength * 2));
+                        Arrays.fill(localSymbols, oldLength, localSymbols.length, -1);
+                    }
+                    if (localSymbols[tickerId] < 0) {
+                        localSymbols[tickerId] = symbolCount++;
+                        names = putString(names, ledger.getTicker(row));
+                        newSymbols++;
+                    }
+                    byte typeCode = ledger.getTypeCode(row);
+                    if (localTypes[typeCode] < 0) {
+                        localTypes[typeCode] = typeCount++;
+                        typeNames = putString(typeNames, ledger.typeName(typeCode));
+                        newTypes++;
+                    }
+                    if (ledger.getEpochDay(row) == TransactionLedger.RAW_DATE) {
+                        raw = ensureRemaining(raw, 4);
+                        raw.putInt(row - first);
+                        raw = putString(raw, rawDate(ledger, row));
+                        rawCount++;
+                    }
+                }
+
+                int blockLength = 4 + 4 + names.position() + 4 + typeNames.position() + 4 + raw.position() + count * 25;
+                if (block.capacity() < 4 + blockLength) {
+                    block = ByteBuffer.allocate(4 + blockLength);
+                }
+                block.clear();
+                block.putInt(blockLength).putInt(count);
+                block.putInt(newSymbols).put(names.flip());
+                block.putInt(newTypes).put(typeNames.flip());
+                block.putInt(rawCount).put(raw.flip());
+                for (int row = first; row < first + count; row++) {
+                    block.putInt(localSymbols[ledger.getTickerId(row)]);
+                }
+                for (int row = first; row < first + count; row++) {
+                    block.putInt(ledger.getEpochDay(row));
+                }
+                for (int row = first; row < first + count; row++) {
+                    block.put((byte) localTypes[ledger.getTypeCode(row)]);
+                }
+                for (int row = first; row < first + count; row++) {
+                    block.putLong(ledger.getQtyUnits(row));
+                }
+                for (int row = first; row < first + count; row++) {
+                    block.putLong(ledger.getCostBasisUnits(row));
+                }
+                writeFully(channel, block);
+            }
+        }
+    }
+
+    // ---- CSV parsing ----
+
+    // Rows parsed from one CSV file, waiting to be appended to the ledger
+    private static final class Batch {
+        private int[] tickerIds = new int[BATCH_SIZE];
+        private int[] epochDays = new int[BATCH_SIZE];
+        private byte[] typeCodes = new byte[BATCH_SIZE];
+        private long[] qty = new long[BATCH_SIZE];
+        private long[] costBasis = new long[BATCH_SIZE];
+        private int count;
+
+        private void ensureCapacity(int rows) {
+            if (rows > tickerIds.length) {
+                tickerIds = new int[rows];
+                epochDays = new int[rows];
+                typeCodes = new byte[rows];
+                qty = new long[rows];
+                costBasis = new long[rows];
+            }
+        }
+
+        private void flush(TransactionLedger ledger) {
+            ledger.appendBatch(tickerIds, epochDays, typeCodes, qty, costBasis, 0, count);
+            count = 0;
+        }
+    }
+
+    private static final class CsvParser {
+        private final Path file;
+        private final TransactionLedger ledger;
+        private final Batch batch = new Batch();
+        private final ByteKeyMap tickers = new ByteKeyMap();
+        private final ByteKeyMap types = new ByteKeyMap();
+        private final int[] fieldStarts = new int[5];
+        private final int[] fieldEnds = new int[5];
+        private long lineNumber;
+        private long rows;
+
+        // Last date seen, since consecutive rows usually share one
+        private final byte[] lastDate = new byte[10];
+        private int lastDay = TransactionLedger.RAW_DATE;
+
+        private CsvParser(Path file, TransactionLedger ledger) {
+            this.file = file;
+            this.ledger = ledger;
+        }
+
+        private void parseLine(byte[] data, int start, int end) throws IOException {
+            lineNumber++;
+            if (end > start && data[end - 1] == '\r') {
+                end--;
+            }
+            if (start == end) {
+                return;
+            }
+            if (lineNumber == 1 && startsWithIgnoreCase(data, start, end, "Ticker")) {
+                return;
+            }
+
+            int fields = 0;
+            int fieldStart = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || data[i] == ',') {
+                    if (fields == 5) {
+                        throw error("expected 5 fields", null);
+                    }
+                    fieldStarts[fields] = fieldStart;
+                    fieldEnds[fields] = i;
+                    fields++;
+                    fieldStart = i + 1;
+                }
+            }
+            if (fields != 5) {
+                throw error("expected 5 fields", null);
+            }
+
+            try {
+                int tickerId = tickers.get(data, fieldStarts[0], fieldEnds[0]);
+                if (tickerId < 0) {
+                    String ticker = string(data, 0);
+                    if (ticker.trim().isEmpty()) {
+                        throw error("missing ticker", null);
+                    }
+                    tickerId = SymbolTable.parse(ticker);
+                    tickers.put(data, fieldStarts[0], fieldEnds[0], tickerId);
+                }
+                int typeCode = types.get(data, fieldStarts[2], fieldEnds[2]);
+                if (typeCode < 0) {
+                    String type = string(data, 2).trim();
+                    if (type.isEmpty()) {
+                        throw error("missing type", null);
+                    }
+                    typeCode = ledger.typeCode(type);
+                    types.put(data, fieldStarts[2], fieldEnds[2], typeCode);
+                }
+                long quantity = parseUnits(data, fieldStarts[3], fieldEnds[3]);
+                long basis = parseUnits(data, fieldStarts[4], fieldEnds[4]);
+                int epochDay = parseDay(data, fieldStarts[1], fieldEnds[1]);
+
+                if (epochDay == TransactionLedger.RAW_DATE) {
+                    flush();
+                    ledger.appendUnits(tickerId, string(data, 1), (byte) typeCode, quantity, basis);
+                } else {
+                    int i = batch.count++;
+                    batch.tickerIds[i] = tickerId;
+                    batch.epochDays[i] = epochDay;
+                    batch.typeCodes[i] = (byte) typeCode;
+                    batch.qty[i] = quantity;
+                    batch.costBasis[i] = basis;
+                    if (batch.count == BATCH_SIZE) {
+                        flush();
+                    }
+                }
+                rows++;
+            } catch (NumberFormatException e) {
+                throw error(e.getMessage(), e);
+            }
+        }
+
+        private void flush() {
+            batch.flush(ledger);
+        }
+
+        // MM/dd/yyyy straight to an epoch day; anything else is left to the ledger as a raw date
+        private int parseDay(byte[] data, int start, int end) {
+            if (end - start != 10) {
+                return TransactionLedger.RAW_DATE;
+            }
+            if (lastDay != TransactionLedger.RAW_DATE && Arrays.equals(data, start, end, lastDate, 0, 10)) {
+                return lastDay;
+            }
+            if (data[start + 2] != '/' || data[start + 5] != '/') {
+                return TransactionLedger.RAW_DATE;
+            }
+            int month = digits(data, start, 2);
+            int day = digits(data, start + 3, 2);
+            int year = digits(data, start + 6, 4);
+            if (month < 1 || month > 12 || day < 1 || year < 0 || day > lengthOfMonth(year, month)) {
+                return TransactionLedger.RAW_DATE;
+            }
+            lastDay = epochDay(year, month, day);
+            System.arraycopy(data, start, lastDate, 0, 10);
+            return lastDay;
+        }
+
+        private String string(byte[] data, int field) {
+            return new String(data, fieldStarts[field], fieldEnds[field] - fieldStarts[field], StandardCharsets.UTF_8);
+        }
+
+        private IOException error(String message, Throwable cause) {
+            return new IOException(file + ":" + lineNumber + ": " + message, cause);
+        }
+    }
+
+    // Open-addressing map from a byte range to a non-negative int, for interning fields
+    private static final class ByteKeyMap {
+        private byte[][] keys = new byte[64][];
+        private int[] values = new int[64];
+        private int size;
+
+        // Returns -1 when the bytes are not in the map
+        private int get(byte[] data, int start, int end) {
+            int mask = keys.length - 1;
+            for (int slot = hash(data, start, end) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, data, start, end)) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        private void put(byte[] data, int start, int end, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(data, start, end) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = Arrays.copyOfRange(data, start, end);
+            values[slot] = value;
+            size++;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    put(oldKeys[i], 0, oldKeys[i].length, oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(byte[] data, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + data[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    // ---- Helpers ----
+
+    // Parses a plain decimal ("-12.5") to Money units, rounding half up past six places;
+    // anything unusual (exponents, spaces, a leading +) goes through Money.parse
+    static long parseUnits(byte[] data, int start, int end) {
+        int i = start;
+        boolean negative = i < end && data[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long whole = 0;
+        int wholeDigits = 0;
+        while (i < end && data[i] >= '0' && data[i] <= '9') {
+            whole = whole * 10 + (data[i++] - '0');
+            wholeDigits++;
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < end && data[i] == '.') {
+            i++;
+            while (i < end && data[i] >= '0' && data[i] <= '9') {
+                if (fractionDigits < Money.DECIMALS) {
+                    fraction = fraction * 10 + (data[i] - '0');
+                } else if (fractionDigits == Money.DECIMALS) {
+                    roundUp = data[i] >= '5';
+                }
+                fractionDigits++;
+                i++;
+            }
+        }
+        if (i != end || wholeDigits + fractionDigits == 0 || wholeDigits > 12) {
+            return Money.parse(new String(data, start, end - start, StandardCharsets.UTF_8));
+        }
+        for (int d = Math.min(fractionDigits, Money.DECIMALS); d < Money.DECIMALS; d++) {
+            fraction *= 10;
+        }
+        long units = whole * Money.SCALE + fraction + (roundUp ? 1 : 0);
+        return negative ? -units : units;
+    }
+
+    // Writes units the way Money.toString does: plain digits, no trailing zeros
+    static void putUnits(ByteBuffer buffer, long units) {
+        if (units < 0) {
+            buffer.put((byte) '-');
+        }
+        // Negate as unsigned so Long.MIN_VALUE works too
+        long magnitude = units < 0 ? -units : units;
+        long whole = Long.divideUnsigned(magnitude, Money.SCALE);
+        long fraction = Long.remainderUnsigned(magnitude, Money.SCALE);
+        putDigits(buffer, whole);
+        if (fraction != 0) {
+            buffer.put((byte) '.');
+            int digits = Money.DECIMALS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            for (long scale = pow10(digits - 1); scale > 0; scale /= 10) {
+                buffer.put((byte) ('0' + fraction / scale % 10));
+            }
+        }
+    }
+
+    private static void putDigits(ByteBuffer buffer, long value) {
+        if (value >= 10) {
+            putDigits(buffer, value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static int digits(byte[] data, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            if (data[i] < '0' || data[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (data[i] - '0');
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // Days since 1970-01-01 for a valid proleptic Gregorian date
+    private static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] data, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase((char) data[start + i]) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] csvField(String text) throws IOException {
+        if (text.indexOf(',') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            throw new IOException("Value cannot be written as a CSV field: " + text);
+        }
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer putString(ByteBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value too long for a binary ledger: " + text.length() + " chars");
+        }
+        buffer = ensureRemaining(buffer, 2 + bytes.length);
+        buffer.putShort((short) bytes.length).put(bytes);
+        return buffer;
+    }
+
+    private static String getString(ByteBuffer buffer, Path file, long rows) throws IOException {
+        checkRemaining(buffer, 2, file, rows);
+        short length = buffer.getShort();
+        checkRemaining(buffer, length, file, rows);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void checkRemaining(ByteBuffer buffer, long bytes, Path file, long rows) throws IOException {
+        if (bytes < 0 || buffer.remaining() < bytes) {
+            throw corrupt(file, rows);
+        }
+    }
+
+    private static IOException corrupt(Path file, long rows) {
+        return new IOException(file + ": corrupt block after row " + rows);
+    }
+
+    // A row kept as a raw date may have no text at all, e.g. one appended with a null date
+    private static String rawDate(TransactionLedger ledger, int row) {
+        String text = ledger.getTransDate(row);
+        return text == null ? "" : text;
+    }
+
+    private static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        return larger.put(buffer.flip());
+    }
+
+    private static void getInts(ByteBuffer buffer, int[] target, int count) {
+        buffer.asIntBuffer().get(target, 0, count);
+        buffer.position(buffer.position() + count * 4);
+    }
+
+    private static void getLongs(ByteBuffer buffer, long[] target, int count) {
+        buffer.asLongBuffer().get(target, 0, count);
+        buffer.position(buffer.position() + count * 8);
+    }
+
+    // Returns false if the channel ends before the buffer is full
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+}
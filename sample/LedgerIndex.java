@@ -0,0 +1,302 @@
+/**
+ * LedgerIndex.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Secondary indexes kept up to date by TransactionLedger on every append:
+ *   - ticker id -> the rows for that ticker, in row order
+ *   - epoch day -> row ranges; while rows arrive in date order this is a sorted
+ *     list of runs of consecutive rows sharing a day, found by binary search.
+ *     The first out-of-order date switches it to a TreeMap of day -> rows.
+ *   - transaction type code -> a bitmap of rows
+ * Queries cost time proportional to the rows they return (plus a log factor for
+ * the date lookup), not to the size of the ledger.
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+public class LedgerIndex {
+    // Growable list of row numbers
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private IntList[] tickerRows = new IntList[16];
+    private final BitSet[] typeRows = new BitSet[Byte.MAX_VALUE + 1];
+
+    // Day runs, used while dates never go backwards: run i covers rows
+    // [runStarts[i], runEnds[i]) all dated runDays[i]
+    private int[] runDays = new int[64];
+    private int[] runStarts = new int[64];
+    private int[] runEnds = new int[64];
+    private int runCount;
+
+    // Used instead of the runs once a date arrives out of order
+    private TreeMap<Integer, IntList> dayRows;
+
+    // One past the highest row indexed so far
+    private int rowCount;
+
+    // Called by TransactionLedger for each new row; epochDay is skipped when it is noDate
+    public void add(int row, int tickerId, int epochDay, byte typeCode, int noDate) {
+        rowCount = Math.max(rowCount, row + 1);
+        if (tickerId >= tickerRows.length) {
+            tickerRows = Arrays.copyOf(tickerRows, Math.max(tickerId + 1, tickerRows.length * 2));
+        }
+        if (tickerRows[tickerId] == null) {
+            tickerRows[tickerId] = new IntList();
+        }
+        tickerRows[tickerId].add(row);
+
+        if (typeCode >= 0) {
+            if (typeRows[typeCode] == null) {
+                typeRows[typeCode] = new BitSet();
+            }
+            typeRows[typeCode].set(row);
+        }
+
+        if (epochDay != noDate) {
+            addDay(row, epochDay);
+        }
+    }
+
+    // Rows for one ticker, in row order
+    public int[] rowsForTicker(int tickerId) {
+        if (tickerId < 0 || tickerId >= tickerRows.length || tickerRows[tickerId] == null) {
+            return new int[0];
+        }
+        IntList rows = tickerRows[tickerId];
+        return Arrays.copyOf(rows.values, rows.size);
+    }
+
+    public int countForTicker(int tickerId) {
+        if (tickerId < 0 || tickerId >= tickerRows.length || tickerRows[tickerId] == null) {
+            return 0;
+        }
+        return tickerRows[tickerId].size;
+    }
+
+    // Rows for one ticker from newest to oldest, read lazily from the index
+    public PrimitiveIterator.OfInt rowsForTickerNewestFirst(int tickerId) {
+        IntList rows = tickerId >= 0 && tickerId < tickerRows.length ? tickerRows[tickerId] : null;
+        int count = rows == null ? 0 : rows.size;
+        return new PrimitiveIterator.OfInt() {
+            private int next = count - 1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                return rows.values[next--];
+            }
+        };
+    }
+
+    // Dated rows on or before a day, newest first; only the rows actually read are visited
+    public PrimitiveIterator.OfInt rowsOnOrBeforeNewestFirst(int day) {
+        if (dayRows != null) {
+            // Step through the days by key rather than through a live view of the map, and
+            // stop at the rows indexed so far, so rows appended while the cursor is open
+            // neither throw ConcurrentModificationException nor show up in later pages
+            TreeMap<Integer, IntList> days = dayRows;
+            Integer firstDay = days.floorKey(day);
+            int rowLimit = rowCount;
+            return new PrimitiveIterator.OfInt() {
+                private Integer currentDay = firstDay;
+                private IntList current = firstDay == null ? null : days.get(firstDay);
+                private int next = current == null ? -1 : current.size - 1;
+
+                @Override
+                public boolean hasNext() {
+                    while (current != null) {
+                        while (next >= 0 && current.values[next] >= rowLimit) {
+                            next--;
+                        }
+                        if (next >= 0) {
+                            return true;
+                        }
+                        currentDay = days.lowerKey(currentDay);
+                        current = currentDay == null ? null : days.get(currentDay);
+                        next = current == null ? -1 : current.size - 1;
+                    }
+                    return false;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.values[next--];
+                }
+            };
+        }
+        // Last run dated on or before the day
+        int found = Arrays.binarySearch(runDays, 0, runCount, day);
+        int lastRun;
+        if (found >= 0) {
+            lastRun = found;
+            while (lastRun + 1 < runCount && runDays[lastRun + 1] == day) {
+                lastRun++;
+            }
+        } else {
+            lastRun = -found - 2;
+        }
+        // Work on the arrays as they are now, so later appends can't move them underneath
+        int[] starts = runStarts;
+        int[] ends = runEnds;
+        int startRun = lastRun;
+        return new PrimitiveIterator.OfInt() {
+            private int run = startRun;
+            private int next = startRun >= 0 ? ends[startRun] - 1 : -1;
+
+            @Override
+            public boolean hasNext() {
+                while (run >= 0 && next < starts[run]) {
+                    run--;
+                    if (run >= 0) {
+                        next = ends[run] - 1;
+                    }
+                }
+                return run >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return next--;
+            }
+        };
+    }
+
+    // Rows dated fromDay to toDay inclusive, ordered by date then row
+    public int[] rowsBetween(int fromDay, int toDay) {
+        IntList result = new IntList();
+        forEachRowBetween(fromDay, toDay, result::add);
+        return Arrays.copyOf(result.values, result.size);
+    }
+
+    public void forEachRowBetween(int fromDay, int toDay, IntConsumer action) {
+        if (fromDay > toDay) {
+            return;
+        }
+        if (dayRows != null) {
+            for (IntList rows : dayRows.subMap(fromDay, true, toDay, true).values()) {
+                for (int i = 0; i < rows.size; i++) {
+                    action.accept(rows.values[i]);
+                }
+            }
+            return;
+        }
+        int run = Arrays.binarySearch(runDays, 0, runCount, fromDay);
+        if (run < 0) {
+            run = -run - 1;
+        } else {
+            // Several runs can share a day; start at the first of them
+            while (run > 0 && runDays[run - 1] == fromDay) {
+                run--;
+            }
+        }
+        for (; run < runCount && runDays[run] <= toDay; run++) {
+            for (int row = runStarts[run]; row < runEnds[run]; row++) {
+                action.accept(row);
+            }
+        }
+    }
+
+    // Rows of one transaction type, in row order
+    public int[] rowsOfType(byte typeCode) {
+        IntList result = new IntList();
+        forEachRowOfType(typeCode, result::add);
+        return Arrays.copyOf(result.values, result.size);
+    }
+
+    public void forEachRowOfType(byte typeCode, IntConsumer action) {
+        BitSet rows = typeCode >= 0 ? typeRows[typeCode] : null;
+        if (rows == null) {
+            return;
+        }
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            action.accept(row);
+        }
+    }
+
+    public int countOfType(byte typeCode) {
+        BitSet rows = typeCode >= 0 ? typeRows[typeCode] : null;
+        return rows == null ? 0 : rows.cardinality();
+    }
+
+    private void addDay(int row, int epochDay) {
+        if (dayRows != null) {
+            dayRows.computeIfAbsent(epochDay, day -> new IntList()).add(row);
+            return;
+        }
+        if (runCount > 0) {
+            int last = runCount - 1;
+            if (epochDay < runDays[last]) {
+                switchToTree();
+                addDay(row, epochDay);
+                return;
+            }
+            if (epochDay == runDays[last] && runEnds[last] == row) {
+                runEnds[last] = row + 1;
+                return;
+            }
+        }
+        if (runCount == runDays.length) {
+            runDays = Arrays.copyOf(runDays, runCount * 2);
+            runStarts = Arrays.copyOf(runStarts, runCount * 2);
+            runEnds = Arrays.copyOf(runEnds, runCount * 2);
+        }
+        runDays[runCount] = epochDay;
+        runStarts[runCount] = row;
+        runEnds[runCount] = row + 1;
+        runCount++;
+    }
+
+    private void switchToTree() {
+        dayRows = new TreeMap<Integer, IntList>();
+        for (int run = 0; run < runCount; run++) {
+            IntList rows = dayRows.computeIfAbsent(runDays[run], day -> new IntList());
+            for (int row = runStarts[run]; row < runEnds[run]; row++) {
+                rows.add(row);
+            }
+        }
+        runDays = null;
+        runStarts = null;
+        runEnds = null;
+        runCount = 0;
+    }
+
+    // First and last indexed day, or null when no row has a date
+    public int[] dayRange() {
+        if (dayRows != null) {
+            if (dayRows.isEmpty()) {
+                return null;
+            }
+            return new int[] {dayRows.firstKey(), dayRows.lastKey()};
+        }
+        return runCount == 0 ? null : new int[] {runDays[0], runDays[runCount - 1]};
+    }
+}
@@ -0,0 +1,353 @@
+/**
+ * LedgerJournal.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * This class keeps an append-only binary journal of TransactionHistory records.
+ * Appends are collected in memory and written as a group, with one fsync per
+ * group instead of one per record. A background task also commits whatever is
+ * pending every few milliseconds, so a quiet session never holds records for long.
+ * append() and appendAtomic() return before the records are on disk: a crash can
+ * lose up to groupSize records or syncIntervalMillis of appends. Callers that
+ * acknowledge each record (e.g. to a user) use appendDurably() or call commit()
+ * first, which return only after the fsync.
+ * On open, the file is read through a memory map, and a torn or corrupt tail left
+ * by a crash is cut off before new records are appended.
+ *
+ * File layout: a 4-byte magic number followed by frames of
+ *   [int payloadLength][int crc32(payload)][payload]
+ * where the payload holds one or more records of
+ *   [ticker][transDate][transType][double qty][double costBasis]
+ * and each string is a 2-byte length followed by its UTF-8 bytes.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class LedgerJournal implements PortfolioManager.TransactionListener, AutoCloseable {
+    private static final int MAGIC = 0x504C4A31; // "PLJ1"
+    private static final int HEADER_SIZE = 4;
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    // Largest region mapped at once while reading
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    // Defaults for group commit
+    public static final int DEFAULT_GROUP_SIZE = 256;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 50;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int groupSize;
+    private final ScheduledExecutorService syncTimer;
+
+    // Frames waiting for the next group commit
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private int pendingRecords;
+
+    // Offset just past the last committed frame, and records written so far
+    private long committedOffset;
+    private long recordCount;
+
+    private final CRC32 crc = new CRC32();
+
+    private LedgerJournal(Path file, FileChannel channel, int groupSize, long syncIntervalMillis) {
+        this.file = file;
+        this.channel = channel;
+        this.groupSize = groupSize;
+        if (syncIntervalMillis > 0) {
+            syncTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncTimer.scheduleWithFixedDelay(this::commitQuietly, syncIntervalMillis, syncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        } else {
+            syncTimer = null;
+        }
+    }
+
+    public static LedgerJournal open(Path file) throws IOException {
+        return open(file, DEFAULT_GROUP_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    // groupSize records are buffered before each write and fsync; a syncIntervalMillis
+    // of zero turns off the background commit
+    public static LedgerJournal open(Path file, int groupSize, long syncIntervalMillis) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(0, MAGIC);
+                channel.truncate(0);
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            LedgerJournal journal = new LedgerJournal(file, channel, Math.max(groupSize, 1), syncIntervalMillis);
+            journal.recover();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // PortfolioManager.TransactionListener
+    @Override
+    public void transactionAdded(TransactionHistory transaction) {
+        try {
+            append(transaction);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Both legs of a trade go into one frame
+    @Override
+    public void transactionsAdded(TransactionHistory... transactions) {
+        try {
+            appendAtomic(transactions);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void append(TransactionHistory transaction) throws IOException {
+        appendAtomic(transaction);
+    }
+
+    // Writes several records as one frame, so after a crash either all of them
+    // are replayed or none are (e.g. the stock and cash legs of a trade)
+    public synchronized void appendAtomic(TransactionHistory... records) throws IOException {
+        appendFrame(records, false);
+    }
+
+    // Like appendAtomic, but returns only once the records (and everything pending before
+    // them) are forced to disk; if that fails, these records are not written later either
+    public synchronized void appendDurably(TransactionHistory... records) throws IOException {
+        appendFrame(records, true);
+    }
+
+    private void appendFrame(TransactionHistory[] records, boolean sync) throws IOException {
+        if (records.length == 0) {
+            return;
+        }
+        byte[][] strings = new byte[records.length * 3][];
+        int payloadLength = 0;
+        for (int i = 0; i < records.length; i++) {
+            strings[i * 3] = encode(records[i].getTicker());
+            strings[i * 3 + 1] = encode(records[i].getTransDate());
+            strings[i * 3 + 2] = encode(records[i].getTransType());
+            payloadLength += 6 + strings[i * 3].length + strings[i * 3 + 1].length + strings[i * 3 + 2].length + 16;
+        }
+
+        int frameLength = FRAME_HEADER_SIZE + payloadLength;
+        if (pending.remaining() < frameLength) {
+            commit();
+            if (pending.capacity() < frameLength) {
+                pending = ByteBuffer.allocate(frameLength);
+            }
+        }
+
+        int frameStart = pending.position();
+        pending.position(frameStart + FRAME_HEADER_SIZE);
+        for (int i = 0; i < records.length; i++) {
+            putString(pending, strings[i * 3]);
+            putString(pending, strings[i * 3 + 1]);
+            putString(pending, strings[i * 3 + 2]);
+            pending.putDouble(records[i].getQty());
+            pending.putDouble(records[i].getCostBasis());
+        }
+        crc.reset();
+        crc.update(pending.array(), frameStart + FRAME_HEADER_SIZE, payloadLength);
+        pending.putInt(frameStart, payloadLength);
+        pending.putInt(frameStart + 4, (int) crc.getValue());
+
+        pendingRecords += records.length;
+        if (sync || pendingRecords >= groupSize) {
+            try {
+                commit();
+            } catch (IOException | RuntimeException e) {
+                // Take this frame back out: the caller reports it as not saved, so it must not
+                // reach the file on a later commit. Earlier frames stay pending for the next try.
+                pending.position(frameStart);
+                pendingRecords -= records.length;
+                throw e;
+            }
+        }
+    }
+
+    // Writes all pending frames and forces them to disk. Nothing is published until
+    // the force succeeds: if a write or force fails, pending and committedOffset are
+    // left as they were, so a retry rewrites the same region instead of adding to it.
+    public synchronized void commit() throws IOException {
+        if (pending.position() == 0) {
+            return;
+        }
+        ByteBuffer frames = pending.duplicate();
+        frames.flip();
+        long offset = committedOffset;
+        while (frames.hasRemaining()) {
+            offset += channel.write(frames, offset);
+        }
+        channel.force(false);
+        committedOffset = offset;
+        pending.clear();
+        recordCount += pendingRecords;
+        pendingRecords = 0;
+    }
+
+    // Offset just past the last committed frame
+    public synchronized long committedOffset() {
+        return committedOffset;
+    }
+
+    // Records committed to disk so far
+    public synchronized long recordCount() {
+        return recordCount;
+    }
+
+    // Replays every committed record in order
+    public long replay(Consumer<TransactionHistory> consumer) throws IOException {
+        return replay(HEADER_SIZE, consumer);
+    }
+
+    // Replays committed records starting at a frame boundary; returns how many were read
+    public long replay(long fromOffset, Consumer<TransactionHistory> consumer) throws IOException {
+        long end;
+        synchronized (this) {
+            commit();
+            end = committedOffset;
+        }
+        return replay(fromOffset, end, consumer);
+    }
+
+    // Replays the committed frames in [fromOffset, toOffset); both must be frame boundaries
+    public long replay(long fromOffset, long toOffset, Consumer<TransactionHistory> consumer) throws IOException {
+        long end = Math.min(toOffset, committedOffset());
+        long[] count = new long[1];
+        scan(channel, Math.max(fromOffset, HEADER_SIZE), end, record -> {
+            consumer.accept(record);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (syncTimer != null) {
+            syncTimer.shutdownNow();
+        }
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Finds the end of the last intact frame and cuts off anything after it
+    private void recover() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a ledger journal");
+        }
+        long[] count = new long[1];
+        long validEnd = scan(channel, HEADER_SIZE, channel.size(), record -> count[0]++);
+        if (validEnd < channel.size()) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        committedOffset = validEnd;
+        recordCount = count[0];
+    }
+
+    // Decodes frames in [from, to) through memory-mapped windows and returns
+    // the offset after the last frame whose length and checksum were valid
+    private static long scan(FileChannel channel, long from, long to, Consumer<TransactionHistory> consumer)
+            throws IOException {
+        CRC32 checksum = new CRC32();
+        long position = from;
+        while (position < to) {
+            long windowSize = Math.min(MAP_WINDOW, to - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            int offset = 0;
+            while (offset + FRAME_HEADER_SIZE <= windowSize) {
+                int payloadLength = window.getInt(offset);
+                int expectedCrc = window.getInt(offset + 4);
+                long frameEnd = position + offset + FRAME_HEADER_SIZE + (long) payloadLength;
+                if (payloadLength <= 0 || frameEnd > to) {
+                    return position + offset; // torn or garbage frame
+                }
+                if (offset + FRAME_HEADER_SIZE + (long) payloadLength > windowSize) {
+                    break; // frame crosses the window edge; remap from its start
+                }
+                ByteBuffer payload = window.duplicate();
+                payload.position(offset + FRAME_HEADER_SIZE).limit(offset + FRAME_HEADER_SIZE + payloadLength);
+                checksum.reset();
+                checksum.update(payload.duplicate());
+                if ((int) checksum.getValue() != expectedCrc) {
+                    return position + offset;
+                }
+                while (payload.hasRemaining()) {
+                    String ticker = getString(payload);
+                    String transDate = getString(payload);
+                    String transType = getString(payload);
+                    double qty = payload.getDouble();
+                    double costBasis = payload.getDouble();
+                    consumer.accept(new TransactionHistory(ticker, transDate, transType, qty, costBasis));
+                }
+                offset += FRAME_HEADER_SIZE + payloadLength;
+            }
+            if (offset == 0) {
+                return position; // a single frame larger than the window is treated as corrupt
+            }
+            position += offset;
+        }
+        return position;
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            // The next append or close reports the failure
+        }
+    }
+
+    private static byte[] encode(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Journal field too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * LedgerSnapshot.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * This class holds a compact copy of the state derived from a LedgerJournal:
+ * the balance of every ticker (CASH included) in Money units and the journal offset and record
+ * count those balances cover. Loading a snapshot and replaying only the journal
+ * tail after its offset rebuilds the same balances as a full replay.
+ *
+ * File layout: [int magic][long journalOffset][long recordCount][int tickerCount]
+ * then per ticker [2-byte length][UTF-8 ticker][long units], then [int crc32]
+ * over everything before it. Files are written to a temporary name and renamed,
+ * so a crash never leaves a half-written snapshot in place.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+public class LedgerSnapshot {
+    private static final int MAGIC = 0x504C5332; // "PLS2"
+
+    private final long journalOffset;
+    private final long recordCount;
+    private final Map<String, Long> positions;
+
+    public LedgerSnapshot(long journalOffset, long recordCount, Map<String, Long> positions) {
+        this.journalOffset = journalOffset;
+        this.recordCount = recordCount;
+        this.positions = positions;
+    }
+
+    public long getJournalOffset() {
+        return journalOffset;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public Map<String, Long> getPositions() {
+        return positions;
+    }
+
+    public void write(Path file) throws IOException {
+        byte[][] names = new byte[positions.size()][];
+        int size = 4 + 8 + 8 + 4 + 4;
+        int i = 0;
+        for (String ticker : positions.keySet()) {
+            names[i] = ticker.getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length + 8;
+            i++;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putLong(journalOffset);
+        buffer.putLong(recordCount);
+        buffer.putInt(positions.size());
+        i = 0;
+        for (long units : positions.values()) {
+            buffer.putShort((short) names[i].length);
+            buffer.put(names[i]);
+            buffer.putLong(units);
+            i++;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns null when there is no snapshot or it fails its checksum,
+    // in which case the caller falls back to a full journal replay
+    public static LedgerSnapshot load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 28 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            ByteBuffer body = buffer.duplicate();
+            body.limit((int) size - 4);
+            crc.update(body);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt((int) size - 4) != (int) crc.getValue()) {
+                return null;
+            }
+
+            buffer.position(4);
+            long journalOffset = buffer.getLong();
+            long recordCount = buffer.getLong();
+            int count = buffer.getInt();
+            Map<String, Long> positions = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                positions.put(new String(name, StandardCharsets.UTF_8), buffer.getLong());
+            }
+            return new LedgerSnapshot(journalOffset, recordCount, positions);
+        }
+    }
+}
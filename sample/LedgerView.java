@@ -0,0 +1,240 @@
+/**
+ * LedgerView.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * A read-only snapshot of a TransactionLedger, taken with ledger.snapshot().
+ * The ledger only ever appends, and rows below its size are never rewritten,
+ * so a snapshot shares the column arrays instead of copying them. It records
+ * the row count when it was taken; rows appended later are not visible.
+ * All fields are final, so once published the snapshot can be read from any
+ * number of threads without locking, while the ledger keeps appending.
+ *
+ * Rows can be read three ways:
+ *   - by column, e.g. getQtyUnits(row), with no allocation
+ *   - through a Row cursor, a flyweight with the TransactionHistory getters
+ *     that is moved from row to row (one cursor per thread)
+ *   - as LedgerEntry values or TransactionHistory copies, for existing callers
+ */
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+public final class LedgerView {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/uuuu");
+
+    private final int size;
+    private final int[] tickerIds;
+    private final int[] epochDays;
+    private final byte[] typeCodes;
+    private final long[] qty;
+    private final long[] costBasis;
+    private final String[] typeNames;
+    private final Map<Integer, String> rawDates;
+
+    // Called by TransactionLedger.snapshot(); typeNames and rawDates must be private copies
+    LedgerView(int size, int[] tickerIds, int[] epochDays, byte[] typeCodes, long[] qty, long[] costBasis,
+               String[] typeNames, Map<Integer, String> rawDates) {
+        this.size = size;
+        this.tickerIds = tickerIds;
+        this.epochDays = epochDays;
+        this.typeCodes = typeCodes;
+        this.qty = qty;
+        this.costBasis = costBasis;
+        this.typeNames = typeNames;
+        this.rawDates = rawDates;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getTickerId(int row) {
+        checkRow(row);
+        return tickerIds[row];
+    }
+
+    public String getTicker(int row) {
+        return SymbolTable.name(getTickerId(row));
+    }
+
+    public int getEpochDay(int row) {
+        checkRow(row);
+        return epochDays[row];
+    }
+
+    public String getTransDate(int row) {
+        int epochDay = getEpochDay(row);
+        return epochDay == TransactionLedger.RAW_DATE ? rawDates.get(row)
+            : DATE_FORMAT.format(LocalDate.ofEpochDay(epochDay));
+    }
+
+    public byte getTypeCode(int row) {
+        checkRow(row);
+        return typeCodes[row];
+    }
+
+    public String getTransType(int row) {
+        return typeNames[getTypeCode(row)];
+    }
+
+    public long getQtyUnits(int row) {
+        checkRow(row);
+        return qty[row];
+    }
+
+    public double getQty(int row) {
+        return Money.toDouble(getQtyUnits(row));
+    }
+
+    public long getCostBasisUnits(int row) {
+        checkRow(row);
+        return costBasis[row];
+    }
+
+    public double getCostBasis(int row) {
+        return Money.toDouble(getCostBasisUnits(row));
+    }
+
+    public LedgerEntry entry(int row) {
+        return new LedgerEntry(getTicker(row), getTransDate(row), getTransType(row),
+            getQtyUnits(row), getCostBasisUnits(row));
+    }
+
+    // A new cursor positioned before the first row
+    public Row cursor() {
+        return new Row();
+    }
+
+    // Unmodifiable list of entries, built as they are read
+    public List<LedgerEntry> entries() {
+        return new AbstractList<LedgerEntry>() {
+            @Override
+            public LedgerEntry get(int index) {
+                return entry(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Compatibility view for code that takes TransactionHistory; each read is a fresh copy
+    public List<TransactionHistory> asHistoryList() {
+        return new AbstractList<TransactionHistory>() {
+            @Override
+            public TransactionHistory get(int index) {
+                return new TransactionHistory(getTicker(index), getTransDate(index), getTransType(index),
+                    getQty(index), getCostBasis(index));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Flyweight over one row at a time. The data is read-only; only the position
+    // moves, so a cursor belongs to one thread while the view itself is shared.
+    public final class Row {
+        private int row = -1;
+
+        // Formatted date of the last day read, since neighbouring rows usually share it
+        private int cachedDay = TransactionLedger.RAW_DATE;
+        private String cachedDate;
+
+        private Row() {
+        }
+
+        public Row moveTo(int row) {
+            checkRow(row);
+            this.row = row;
+            return this;
+        }
+
+        // Moves to the next row; false once past the last one
+        public boolean next() {
+            if (row + 1 >= size) {
+                row = size;
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getTicker() {
+            return SymbolTable.name(tickerIds[current()]);
+        }
+
+        public int getTickerId() {
+            return tickerIds[current()];
+        }
+
+        public String getTransDate() {
+            int epochDay = epochDays[current()];
+            if (epochDay == TransactionLedger.RAW_DATE) {
+                return rawDates.get(row);
+            }
+            if (epochDay != cachedDay) {
+                cachedDate = DATE_FORMAT.format(LocalDate.ofEpochDay(epochDay));
+                cachedDay = epochDay;
+            }
+            return cachedDate;
+        }
+
+        public String getTransType() {
+            return typeNames[typeCodes[current()]];
+        }
+
+        public double getQty() {
+            return Money.toDouble(qty[current()]);
+        }
+
+        public double getCostBasis() {
+            return Money.toDouble(costBasis[current()]);
+        }
+
+        public long getQtyUnits() {
+            return qty[current()];
+        }
+
+        public long getCostBasisUnits() {
+            return costBasis[current()];
+        }
+
+        public LedgerEntry toEntry() {
+            return entry(current());
+        }
+
+        public TransactionHistory toTransactionHistory() {
+            return new TransactionHistory(getTicker(), getTransDate(), getTransType(), getQty(), getCostBasis());
+        }
+
+        private int current() {
+            if (row < 0 || row >= size) {
+                throw new IllegalStateException("Cursor is not on a row");
+            }
+            return row;
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range (size " + size + ")");
+        }
+    }
+}
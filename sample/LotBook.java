@@ -0,0 +1,172 @@
+/**
+ * LotBook.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Open buy lots for one ticker, matched against sells under a cost-basis policy:
+ *   FIFO    - sells consume the oldest lots first
+ *   LIFO    - sells consume the newest lots first
+ *   AVERAGE - every share carries the running average cost
+ * Lots sit in a primitive double-ended ring, so a sell only touches the lots it
+ * consumes (amortized constant time per trade). Realized gain and total open
+ * cost are kept as running totals, so unrealized gain at a given price is O(1).
+ * All amounts are Money units.
+ */
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public class LotBook {
+    public enum Policy {
+        FIFO,
+        LIFO,
+        AVERAGE
+    }
+
+    private final Policy policy;
+
+    // Ring of open lots; the oldest is at head, the newest just before tail. Each lot
+    // keeps its remaining cost rather than its price, so the lot costs always add up
+    // to openCost however the lot is split across sells
+    private long[] lotQuantity = new long[8];
+    private long[] lotCost = new long[8];
+    private int head;
+    private int lotCount;
+
+    private long openQuantity;
+    private long openCost;
+    private long realizedGain;
+
+    public LotBook(Policy policy) {
+        this.policy = policy;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public void buy(long quantity, long price) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        long cost = Money.multiply(quantity, price);
+        openQuantity += quantity;
+        openCost += cost;
+        if (policy == Policy.AVERAGE) {
+            return;
+        }
+        if (lotCount == lotQuantity.length) {
+            grow();
+        }
+        int tail = (head + lotCount) & (lotQuantity.length - 1);
+        lotQuantity[tail] = quantity;
+        lotCost[tail] = cost;
+        lotCount++;
+    }
+
+    // Removes shares from the open lots and returns the gain realized by this sale
+    public long sell(long quantity, long price) {
+        if (quantity <= 0 || quantity > openQuantity) {
+            throw new IllegalArgumentException("Cannot sell " + Money.toString(quantity) + " of "
+                + Money.toString(openQuantity) + " open shares");
+        }
+        long cost;
+        if (policy == Policy.AVERAGE) {
+            cost = quantity == openQuantity ? openCost : scale(openCost, quantity, openQuantity);
+        } else {
+            cost = consumeLots(quantity);
+        }
+        long gain = Money.multiply(quantity, price) - cost;
+        openQuantity -= quantity;
+        openCost -= cost;
+        realizedGain += gain;
+        return gain;
+    }
+
+    public long getOpenQuantity() {
+        return openQuantity;
+    }
+
+    public long getOpenCost() {
+        return openCost;
+    }
+
+    public long getRealizedGain() {
+        return realizedGain;
+    }
+
+    // Average cost per open share, or 0 when nothing is open
+    public long getAverageCost() {
+        return openQuantity == 0 ? 0 : scale(openCost, Money.SCALE, openQuantity);
+    }
+
+    public long getUnrealizedGain(long marketPrice) {
+        return Money.multiply(openQuantity, marketPrice) - openCost;
+    }
+
+    // Number of open lots (always 0 under AVERAGE, which keeps only totals)
+    public int getLotCount() {
+        return lotCount;
+    }
+
+    private long consumeLots(long quantity) {
+        int mask = lotQuantity.length - 1;
+        long remaining = quantity;
+        long cost = 0;
+        while (remaining > 0) {
+            int slot = policy == Policy.FIFO ? head : (head + lotCount - 1) & mask;
+            long take = Math.min(remaining, lotQuantity[slot]);
+            // Part of a lot carries its share of the lot's cost; the take that empties
+            // the lot carries whatever is left, so no rounding residue stays behind
+            long takeCost = take == lotQuantity[slot]
+                ? lotCost[slot] : scale(lotCost[slot], take, lotQuantity[slot]);
+            cost += takeCost;
+            lotCost[slot] -= takeCost;
+            lotQuantity[slot] -= take;
+            remaining -= take;
+            if (lotQuantity[slot] == 0) {
+                if (policy == Policy.FIFO) {
+                    head = (head + 1) & mask;
+                }
+                lotCount--;
+            }
+        }
+        return cost;
+    }
+
+    private void grow() {
+        long[] quantities = new long[lotQuantity.length * 2];
+        long[] costs = new long[lotQuantity.length * 2];
+        for (int i = 0; i < lotCount; i++) {
+            int slot = (head + i) & (lotQuantity.length - 1);
+            quantities[i] = lotQuantity[slot];
+            costs[i] = lotCost[slot];
+        }
+        lotQuantity = quantities;
+        lotCost = costs;
+        head = 0;
+    }
+
+    // value * numerator / denominator (denominator > 0), rounded half up;
+    // falls back to BigDecimal when the product would overflow a long
+    private static long scale(long value, long numerator, long denominator) {
+        long high = Math.multiplyHigh(value, numerator);
+        long product = value * numerator;
+        if ((high == 0 && product >= 0) || (high == -1 && product < 0)) {
+            long quotient = product / denominator;
+            long remainder = product % denominator;
+            if (Math.abs(remainder) >= denominator - Math.abs(remainder)) {
+                quotient += product < 0 ? -1 : 1;
+            }
+            return quotient;
+        }
+        return new BigDecimal(value).multiply(new BigDecimal(numerator))
+            .divide(new BigDecimal(denominator), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    @Override
+    public String toString() {
+        return policy + " lots=" + lotCount + " open=" + Money.toString(openQuantity)
+            + " cost=" + Money.toString(openCost) + " realized=" + Money.toString(realizedGain);
+    }
+}
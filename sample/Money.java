@@ -0,0 +1,74 @@
+/**
+ * Money.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Fixed-point amounts stored in a long as millionths ("units"), used for cash,
+ * share quantities and prices in the ledger. Sums of units are exact, so
+ * balances do not drift over long replays the way running double sums do.
+ * Conversions from double round half away from zero to the nearest unit.
+ */
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class Money {
+    // Units per whole dollar or share
+    public static final long SCALE = 1000000L;
+    public static final int DECIMALS = 6;
+
+    // Largest magnitude a double can be converted from without overflowing
+    public static final double MAX_VALUE = Long.MAX_VALUE / (double) SCALE;
+
+    private Money() {
+    }
+
+    // Throws NumberFormatException for NaN, infinities and amounts too large to hold
+    public static long toUnits(double value) {
+        if (Double.isNaN(value) || Math.abs(value) >= MAX_VALUE) {
+            throw new NumberFormatException("Amount out of range: " + value);
+        }
+        double scaled = value * SCALE;
+        return scaled >= 0 ? (long) (scaled + 0.5) : -(long) (-scaled + 0.5);
+    }
+
+    public static double toDouble(long units) {
+        return units / (double) SCALE;
+    }
+
+    // Parses a decimal string exactly, e.g. "250.10" or "-3"
+    public static long parse(String text) {
+        try {
+            return new BigDecimal(text.trim()).setScale(DECIMALS, RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    // Product of two unit amounts (e.g. quantity * price), rounded to a unit
+    public static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        boolean fits = (high == 0 && low >= 0) || (high == -1 && low < 0);
+        if (fits && Math.abs(low) < Long.MAX_VALUE - SCALE) {
+            long half = low >= 0 ? SCALE / 2 : -(SCALE / 2);
+            return (low + half) / SCALE;
+        }
+        return BigDecimal.valueOf(a).multiply(BigDecimal.valueOf(b))
+            .divide(BigDecimal.valueOf(SCALE), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // Plain loop over a primitive array so the JIT can vectorize it
+    public static long sum(long[] units, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += units[i];
+        }
+        return total;
+    }
+
+    public static String toString(long units) {
+        return BigDecimal.valueOf(units, DECIMALS).stripTrailingZeros().toPlainString();
+    }
+}
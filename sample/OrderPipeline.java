@@ -0,0 +1,235 @@
+/**
+ * OrderPipeline.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * A disruptor-style pipeline for one BrokerageAccount. Commands such as
+ * "BUY IBM 10 250" are written into a preallocated ring buffer by a single
+ * producer thread. A single consumer thread then takes every command that is
+ * available as one batch and runs it through the stages:
+ *
+ *   1. parse the command text into the slot's fields
+ *   2. validate and apply it against the account's balance index
+ *   3. journal the rows it produced, with both legs of a trade in one frame
+ *   4. commit the journal once for the whole batch, then publish the results
+ *
+ * The producer and consumer only share two sequence counters, so there are no
+ * locks on the hot path, and only the consumer ever touches the account.
+ *
+ * Commands: DEPOSIT amount | WITHDRAW amount | BUY ticker qty price | SELL ticker qty price
+ */
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class OrderPipeline implements AutoCloseable {
+    // Receives each command's outcome, in submission order, after it is journaled
+    public interface ResultListener {
+        void onResult(long sequence, String command, BrokerageAccount.Result result);
+    }
+
+    private static final byte DEPOSIT = 0;
+    private static final byte WITHDRAW = 1;
+    private static final byte BUY = 2;
+    private static final byte SELL = 3;
+    private static final byte INVALID = -1;
+
+    // One preallocated entry of the ring; reused for every lap
+    private static final class Slot {
+        private String command;
+        private byte op;
+        private int symbolId;
+        private long quantity;
+        private long price;
+        private BrokerageAccount.Result result;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    private final BrokerageAccount account;
+    private final LedgerJournal journal;
+    private final ResultListener listener;
+    private final Thread consumer;
+
+    // Last sequence written by the producer, and last sequence finished by the consumer
+    private final AtomicLong published = new AtomicLong(-1);
+    private final AtomicLong processed = new AtomicLong(-1);
+
+    // Only touched by the producer thread
+    private long nextSequence;
+
+    private volatile boolean running = true;
+    private volatile Throwable failure;
+
+    // capacity is rounded up to a power of two; journal may be null
+    public OrderPipeline(int capacity, BrokerageAccount account, LedgerJournal journal, ResultListener listener) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.account = account;
+        this.journal = journal;
+        this.listener = listener;
+        this.consumer = new Thread(this::consume, "order-pipeline-" + account.getAccountId());
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    // Must only be called from one producer thread; waits while the ring is full
+    public long submit(String command) {
+        long sequence = nextSequence++;
+        while (sequence - processed.get() > ring.length) {
+            checkFailure();
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+        ring[(int) sequence & mask].command = command;
+        published.lazySet(sequence);
+        return sequence;
+    }
+
+    // Waits until every submitted command has been processed
+    public void drain() {
+        long last = nextSequence - 1;
+        while (processed.get() < last) {
+            checkFailure();
+            LockSupport.parkNanos(10000);
+        }
+    }
+
+    public BrokerageAccount getAccount() {
+        return account;
+    }
+
+    @Override
+    public void close() {
+        drain();
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        long done = -1;
+        int idleSpins = 0;
+        try {
+            while (running || published.get() > done) {
+                long available = published.get();
+                if (available == done) {
+                    if (++idleSpins < 100) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(50000);
+                    }
+                    continue;
+                }
+                idleSpins = 0;
+
+                for (long sequence = done + 1; sequence <= available; sequence++) {
+                    Slot slot = ring[(int) sequence & mask];
+                    parse(slot);
+                    apply(slot);
+                }
+                if (journal != null) {
+                    journal.commit();
+                }
+                for (long sequence = done + 1; sequence <= available; sequence++) {
+                    Slot slot = ring[(int) sequence & mask];
+                    if (listener != null) {
+                        listener.onResult(sequence, slot.command, slot.result);
+                    }
+                    slot.command = null;
+                }
+                done = available;
+                processed.lazySet(done);
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    // Stage 1: split "OP [TICKER] AMOUNT [PRICE]" into the slot's fields
+    private static void parse(Slot slot) {
+        slot.op = INVALID;
+        String command = slot.command;
+        if (command == null) {
+            return;
+        }
+        String[] parts = command.trim().split("\\s+");
+        try {
+            switch (parts[0].toUpperCase()) {
+                case "DEPOSIT":
+                case "WITHDRAW":
+                    if (parts.length == 2) {
+                        slot.quantity = Money.toUnits(Double.parseDouble(parts[1]));
+                        slot.op = parts[0].equalsIgnoreCase("DEPOSIT") ? DEPOSIT : WITHDRAW;
+                    }
+                    break;
+                case "BUY":
+                case "SELL":
+                    if (parts.length == 4) {
+                        slot.symbolId = SymbolTable.parse(parts[1]);
+                        slot.quantity = Money.toUnits(Double.parseDouble(parts[2]));
+                        slot.price = Money.toUnits(Double.parseDouble(parts[3]));
+                        slot.op = parts[0].equalsIgnoreCase("BUY") ? BUY : SELL;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // Bad numbers or out-of-range amounts are just an invalid command
+            slot.op = INVALID;
+        }
+    }
+
+    // Stages 2 and 3: validate against the balance index, then journal the new rows as one frame.
+    // A command that throws fails on its own slot; only a journal failure stops the pipeline.
+    private void apply(Slot slot) throws IOException {
+        TransactionLedger ledger = account.getLedger();
+        int firstRow = ledger.size();
+        try {
+            switch (slot.op) {
+                case DEPOSIT:
+                    slot.result = account.deposit(slot.quantity);
+                    break;
+                case WITHDRAW:
+                    slot.result = account.withdraw(slot.quantity);
+                    break;
+                case BUY:
+                    slot.result = account.buy(slot.symbolId, slot.quantity, slot.price);
+                    break;
+                case SELL:
+                    slot.result = account.sell(slot.symbolId, slot.quantity, slot.price);
+                    break;
+                default:
+                    slot.result = BrokerageAccount.Result.INVALID_COMMAND;
+                    return;
+            }
+        } catch (RuntimeException e) {
+            slot.result = BrokerageAccount.Result.FAILED;
+        }
+
+        int rows = ledger.size() - firstRow;
+        if (journal != null && rows > 0) {
+            TransactionHistory[] legs = new TransactionHistory[rows];
+            for (int i = 0; i < rows; i++) {
+                legs[i] = ledger.get(firstRow + i);
+            }
+            journal.appendAtomic(legs);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Order pipeline stopped", failure);
+        }
+    }
+}
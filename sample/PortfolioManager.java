@@ -7,24 +7,110 @@
  * It handles transactions, displays history, and manages portfolio information.
  */
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
 
 public class PortfolioManager {
     // Private field for ArrayList as required
     private ArrayList<TransactionHistory> portfolioList = new ArrayList<TransactionHistory>();
     
+    // Running balance per ticker (CASH included), kept in step with portfolioList
+    private HashMap<String, Position> positionIndex = new HashMap<String, Position>();
+    
     // Scanner for user input
-    private Scanner scanner = new Scanner(System.in);
+    private Scanner scanner;
+    
+    // Where messages go; batch mode points this at a discarding stream
+    private PrintStream out;
+    
+    // Command source for batch mode, null when running interactively
+    private BufferedReader batchInput;
+    private int errorCount;
     
     // Student name for display
     private String studentName = "Rikin Shah";
+    
+    // Formatters are immutable, so one shared instance of each is enough
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+    
+    // Balances are kept as whole millionths ("units") so they add up exactly
+    private static final long UNITS = 1000000L;
+    
+    // Marks a ticker with no position yet in balancesBefore; balances never go below zero
+    private static final long NO_POSITION = Long.MIN_VALUE;
+    
+    // Characters of history text collected before each write to the console
+    private static final int HISTORY_BUFFER_SIZE = 64 * 1024;
+    
+    // Today's date string, reformatted only when the day changes
+    private LocalDate cachedDay;
+    private String cachedDate;
+    
+    // Optional observer for new transactions, e.g. a journal that persists them
+    private TransactionListener transactionListener;
+    
+    // Rows older than a restored snapshot, loaded the first time history is shown
+    private Supplier<List<TransactionHistory>> earlierHistory;
+
+    // One entry of the position index; holds the single shared copy of its ticker
+    private static class Position {
+        private final String ticker;
+        private long units;
+
+        private Position(String ticker) {
+            this.ticker = ticker;
+        }
+    }
+
+    // Called once for every transaction the menu records
+    public interface TransactionListener {
+        void transactionAdded(TransactionHistory transaction);
+
+        // The legs of one operation, e.g. the stock and cash rows of a trade; override
+        // to keep them together (a journal writes them as one record)
+        default void transactionsAdded(TransactionHistory... transactions) {
+            for (TransactionHistory transaction : transactions) {
+                transactionAdded(transaction);
+            }
+        }
+    }
+
+    public PortfolioManager() {
+        this(System.in, System.out);
+    }
+
+    // Runs the menu over any pair of streams, e.g. a network session
+    public PortfolioManager(InputStream in, PrintStream out) {
+        this.scanner = new Scanner(in);
+        this.out = out;
+    }
 
     public static void main(String[] args) {
         PortfolioManager portfolio = new PortfolioManager();
-        portfolio.run();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // Optional second argument is a command file; stdin otherwise
+            portfolio.runBatch(args.length > 1 ? args[1] : null);
+        } else {
+            portfolio.run();
+        }
     }
 
     public void run() {
@@ -33,35 +119,120 @@ public class PortfolioManager {
         do {
             displayMenu();
             try {
-                choice = Integer.parseInt(scanner.nextLine());
+                choice = Integer.parseInt(readLine());
                 processChoice(choice);
             } catch (NumberFormatException e) {
-                System.out.println("❌ Error: Please enter a valid number (0-6)");
+                reportError("Please enter a valid number (0-6)");
                 choice = -1;
             }
         } while (choice != 0);
         
-        System.out.println("Thank you for using the Portfolio Manager!");
+        out.println("Thank you for using the Portfolio Manager!");
         scanner.close();
     }
 
+    public void runBatch(String commandFile) {
+        PrintStream console = out;
+        int commandCount = 0;
+        int skippedCount = 0;
+        long startTime = System.nanoTime();
+        
+        try {
+            if (commandFile == null) {
+                batchInput = new BufferedReader(new InputStreamReader(System.in), 1 << 16);
+            } else {
+                batchInput = new BufferedReader(new FileReader(commandFile), 1 << 16);
+            }
+        } catch (IOException e) {
+            console.println("❌ Error: Cannot open command file " + commandFile + ": " + e.getMessage());
+            return;
+        }
+        
+        // Same commands and prompts as run(), minus the menu and per-command output
+        out = new PrintStream(OutputStream.nullOutputStream());
+        try {
+            String line;
+            while ((line = batchInput.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                commandCount++;
+                int choice;
+                try {
+                    choice = Integer.parseInt(line);
+                } catch (NumberFormatException e) {
+                    reportError("Please enter a valid number (0-6)");
+                    continue;
+                }
+                if (choice == 0) {
+                    break;
+                }
+                if (choice == 5 || choice == 6) {
+                    // Displays produce no output in batch mode, so don't render them
+                    skippedCount++;
+                    continue;
+                }
+                processChoice(choice);
+            }
+        } catch (NoSuchElementException e) {
+            console.println("❌ Error: Command file ended in the middle of a command.");
+        } catch (IOException | UncheckedIOException e) {
+            console.println("❌ Error: Failed reading commands: " + e.getMessage());
+        } finally {
+            out = console;
+            try {
+                batchInput.close();
+            } catch (IOException e) {
+                // Nothing useful to do if close fails
+            }
+            batchInput = null;
+        }
+        
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+        out.println("Batch complete: " + commandCount + " commands, " + portfolioList.size()
+            + " transactions recorded, " + errorCount + " rejected, " + skippedCount
+            + " displays skipped (" + elapsedMillis + " ms)");
+        displayPortfolio();
+    }
+
+    private String readLine() {
+        if (batchInput == null) {
+            return scanner.nextLine();
+        }
+        try {
+            String line = batchInput.readLine();
+            if (line == null) {
+                throw new NoSuchElementException("No line found");
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void reportError(String text) {
+        errorCount++;
+        out.println("❌ Error: " + text);
+    }
+
     private void displayMenu() {
-        System.out.println("\n" + studentName + " Brokerage Account");
-        System.out.println("====================================");
-        System.out.println("0 - Exit");
-        System.out.println("1 - Deposit Cash");
-        System.out.println("2 - Withdraw Cash");
-        System.out.println("3 - Buy Stock");
-        System.out.println("4 - Sell Stock");
-        System.out.println("5 - Display Transaction History");
-        System.out.println("6 - Display Portfolio");
-        System.out.print("Enter option (0 to 6): ");
+        out.println("\n" + studentName + " Brokerage Account");
+        out.println("====================================");
+        out.println("0 - Exit");
+        out.println("1 - Deposit Cash");
+        out.println("2 - Withdraw Cash");
+        out.println("3 - Buy Stock");
+        out.println("4 - Sell Stock");
+        out.println("5 - Display Transaction History");
+        out.println("6 - Display Portfolio");
+        out.print("Enter option (0 to 6): ");
     }
 
     private void processChoice(int choice) {
         switch (choice) {
             case 0:
-                System.out.println("Exiting...");
+                out.println("Exiting...");
                 break;
             case 1:
                 depositCash();
@@ -82,188 +253,361 @@ public class PortfolioManager {
                 displayPortfolio();
                 break;
             default:
-                System.out.println("❌ Error: Invalid option. Please choose 0-6.");
+                reportError("Invalid option. Please choose 0-6.");
         }
     }
 
     private void depositCash() {
-        System.out.print("Enter deposit amount: $");
+        out.print("Enter deposit amount: $");
         try {
-            double amount = Double.parseDouble(scanner.nextLine());
-            if (amount > 0) {
+            double amount = Double.parseDouble(readLine());
+            // Converted once; an amount that rounds to no units at all is not a deposit
+            long units = amount > 0 ? toUnits(amount) : 0;
+            if (units > 0) {
+                amount = fromUnits(units);
                 TransactionHistory deposit = new TransactionHistory("CASH", getCurrentDate(), "DEPOSIT", amount, 1.00);
-                portfolioList.add(deposit);
-                System.out.println("✅ $" + amount + " deposited successfully!");
+                if (addTransaction(deposit)) {
+                    out.println("✅ $" + amount + " deposited successfully!");
+                }
             } else {
-                System.out.println("❌ Error: Deposit amount must be positive.");
+                reportError("Deposit amount must be positive.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("❌ Error: Please enter a valid number.");
+            reportError("Please enter a valid number.");
         }
     }
 
     private void withdrawCash() {
         double availableCash = getAvailableCash();
-        System.out.print("Enter withdrawal amount: $");
+        out.print("Enter withdrawal amount: $");
         try {
-            double amount = Double.parseDouble(scanner.nextLine());
-            if (amount > 0) {
-                if (amount <= availableCash) {
+            double amount = Double.parseDouble(readLine());
+            long units = amount > 0 ? toUnits(amount) : 0;
+            if (units > 0) {
+                amount = fromUnits(units);
+                if (units <= getAvailableUnits("CASH")) {
                     TransactionHistory withdrawal = new TransactionHistory("CASH", getCurrentDate(), "WITHDRAW", -amount, 1.00);
-                    portfolioList.add(withdrawal);
-                    System.out.println("✅ $" + amount + " withdrawn successfully!");
+                    if (addTransaction(withdrawal)) {
+                        out.println("✅ $" + amount + " withdrawn successfully!");
+                    }
                 } else {
-                    System.out.println("❌ Error: Insufficient funds. Available: $" + availableCash);
+                    reportError("Insufficient funds. Available: $" + availableCash);
                 }
             } else {
-                System.out.println("❌ Error: Withdrawal amount must be positive.");
+                reportError("Withdrawal amount must be positive.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("❌ Error: Please enter a valid number.");
+            reportError("Please enter a valid number.");
         }
     }
 
     private void buyStock() {
-        System.out.print("Enter stock ticker: ");
-        String ticker = scanner.nextLine().toUpperCase();
-        System.out.print("Enter quantity: ");
+        out.print("Enter stock ticker: ");
+        String ticker = canonicalTicker(readLine());
+        out.print("Enter quantity: ");
         try {
-            double quantity = Double.parseDouble(scanner.nextLine());
-            System.out.print("Enter price per share: $");
-            double price = Double.parseDouble(scanner.nextLine());
+            double quantity = Double.parseDouble(readLine());
+            out.print("Enter price per share: $");
+            double price = Double.parseDouble(readLine());
+            long quantityUnits = quantity > 0 ? toUnits(quantity) : 0;
+            long priceUnits = price > 0 ? toUnits(price) : 0;
+            quantity = fromUnits(quantityUnits);
+            price = fromUnits(priceUnits);
+            long costUnits = toUnits(quantity * price);
             
-            if (quantity > 0 && price > 0) {
-                double totalCost = quantity * price;
+            if (quantityUnits > 0 && priceUnits > 0 && costUnits > 0) {
+                double totalCost = fromUnits(costUnits);
                 double availableCash = getAvailableCash();
                 
-                if (totalCost <= availableCash) {
-                    // Add stock transaction
-                    TransactionHistory stockTransaction = new TransactionHistory(ticker, getCurrentDate(), "BUY", quantity, price);
-                    portfolioList.add(stockTransaction);
+                if (costUnits <= getAvailableUnits("CASH")) {
+                    String date = getCurrentDate();
                     
-                    // Add cash withdrawal
-                    TransactionHistory cashWithdrawal = new TransactionHistory("CASH", getCurrentDate(), "WITHDRAW", -totalCost, 1.00);
-                    portfolioList.add(cashWithdrawal);
-                    
-                    System.out.println("✅ Bought " + quantity + " shares of " + ticker + " at $" + price + " per share!");
+                    // Add stock transaction and the cash withdrawal that pays for it
+                    TransactionHistory stockTransaction = new TransactionHistory(ticker, date, "BUY", quantity, price);
+                    TransactionHistory cashWithdrawal = new TransactionHistory("CASH", date, "WITHDRAW", -totalCost, 1.00);
+                    if (addTrade(stockTransaction, cashWithdrawal)) {
+                        out.println("✅ Bought " + quantity + " shares of " + ticker + " at $" + price + " per share!");
+                    }
                 } else {
-                    System.out.println("❌ Error: Insufficient funds. Required: $" + totalCost + ", Available: $" + availableCash);
+                    reportError("Insufficient funds. Required: $" + totalCost + ", Available: $" + availableCash);
                 }
             } else {
-                System.out.println("❌ Error: Quantity and price must be positive.");
+                reportError("Quantity and price must be positive.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("❌ Error: Please enter valid numbers.");
+            reportError("Please enter valid numbers.");
         }
     }
 
     private void sellStock() {
-        System.out.print("Enter stock ticker: ");
-        String ticker = scanner.nextLine().toUpperCase();
-        System.out.print("Enter quantity to sell: ");
+        out.print("Enter stock ticker: ");
+        String ticker = canonicalTicker(readLine());
+        out.print("Enter quantity to sell: ");
         try {
-            double quantity = Double.parseDouble(scanner.nextLine());
-            System.out.print("Enter selling price per share: $");
-            double price = Double.parseDouble(scanner.nextLine());
+            double quantity = Double.parseDouble(readLine());
+            out.print("Enter selling price per share: $");
+            double price = Double.parseDouble(readLine());
+            long quantityUnits = quantity > 0 ? toUnits(quantity) : 0;
+            long priceUnits = price > 0 ? toUnits(price) : 0;
+            quantity = fromUnits(quantityUnits);
+            price = fromUnits(priceUnits);
+            long proceedsUnits = toUnits(quantity * price);
             
-            if (quantity > 0 && price > 0) {
+            if (quantityUnits > 0 && priceUnits > 0 && proceedsUnits > 0) {
                 double availableShares = getAvailableShares(ticker);
+                double totalProceeds = fromUnits(proceedsUnits);
                 
-                if (quantity <= availableShares) {
-                    // Add stock transaction
-                    TransactionHistory stockTransaction = new TransactionHistory(ticker, getCurrentDate(), "SELL", -quantity, price);
-                    portfolioList.add(stockTransaction);
-                    
-                    // Add cash deposit
-                    double totalProceeds = quantity * price;
-                    TransactionHistory cashDeposit = new TransactionHistory("CASH", getCurrentDate(), "DEPOSIT", totalProceeds, 1.00);
-                    portfolioList.add(cashDeposit);
+                if (quantityUnits <= getAvailableUnits(ticker)) {
+                    String date = getCurrentDate();
                     
-                    System.out.println("✅ Sold " + quantity + " shares of " + ticker + " at $" + price + " per share!");
+                    // Add stock transaction and the cash deposit of the proceeds
+                    TransactionHistory stockTransaction = new TransactionHistory(ticker, date, "SELL", -quantity, price);
+                    TransactionHistory cashDeposit = new TransactionHistory("CASH", date, "DEPOSIT", totalProceeds, 1.00);
+                    if (addTrade(stockTransaction, cashDeposit)) {
+                        out.println("✅ Sold " + quantity + " shares of " + ticker + " at $" + price + " per share!");
+                    }
                 } else {
-                    System.out.println("❌ Error: Insufficient shares. Available: " + availableShares + " shares of " + ticker);
+                    reportError("Insufficient shares. Available: " + availableShares + " shares of " + ticker);
                 }
             } else {
-                System.out.println("❌ Error: Quantity and price must be positive.");
+                reportError("Quantity and price must be positive.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("❌ Error: Please enter valid numbers.");
+            reportError("Please enter valid numbers.");
         }
     }
 
     private void displayTransactionHistory() {
-        System.out.println("\n" + studentName + " Brokerage Account");
-        System.out.println("====================================");
-        System.out.println();
-        System.out.printf("%-12s %-12s %-12s %-12s %-12s%n", 
+        out.println("\n" + studentName + " Brokerage Account");
+        out.println("====================================");
+        out.println();
+        out.printf("%-12s %-12s %-12s %-12s %-12s%n", 
             "Date", "Ticker", "Quantity", "Cost Basis", "Trans Type");
-        System.out.println("================================================================");
+        out.println("================================================================");
         
+        if (earlierHistory != null) {
+            try {
+                portfolioList.addAll(0, earlierHistory.get());
+                earlierHistory = null;
+            } catch (UncheckedIOException e) {
+                // Show the rows that are loaded; the older ones are tried again next time
+                reportError("Earlier transactions could not be loaded: " + e.getCause().getMessage());
+            }
+        }
+        
+        // Rows are built into one buffer and written in large chunks
+        // instead of one println (and one flush) per transaction
+        StringBuilder buffer = new StringBuilder(HISTORY_BUFFER_SIZE + 256);
+        String lineSeparator = System.lineSeparator();
         for (TransactionHistory transaction : portfolioList) {
-            System.out.println(transaction.toString());
+            transaction.appendTo(buffer).append(lineSeparator);
+            if (buffer.length() >= HISTORY_BUFFER_SIZE) {
+                out.print(buffer);
+                buffer.setLength(0);
+            }
         }
+        out.print(buffer);
+        out.flush();
         
         if (portfolioList.isEmpty()) {
-            System.out.println("No transactions found.");
+            out.println("No transactions found.");
         }
     }
 
     private void displayPortfolio() {
-        System.out.println("\nPortfolio as of: " + getCurrentDateTime());
-        System.out.println("====================================");
-        System.out.println();
-        System.out.printf("%-12s %-12s%n", "Ticker", "Quantity");
-        System.out.println("================================");
+        out.println("\nPortfolio as of: " + getCurrentDateTime());
+        out.println("====================================");
+        out.println();
+        out.printf("%-12s %-12s%n", "Ticker", "Quantity");
+        out.println("================================");
         
-        // Calculate portfolio holdings
-        java.util.Map<String, Double> holdings = new java.util.HashMap<>();
-        
-        for (TransactionHistory transaction : portfolioList) {
-            String ticker = transaction.getTicker();
-            double qty = transaction.getQty();
-            
-            holdings.put(ticker, holdings.getOrDefault(ticker, 0.0) + qty);
+        // Calculate portfolio holdings from the running balances, one row per ticker
+        for (Position position : positionIndex.values()) {
+            if (position.units != 0) {
+                out.printf("%-12s %-12.2f%n", position.ticker, fromUnits(position.units));
+            }
         }
         
-        // Display holdings
-        for (java.util.Map.Entry<String, Double> entry : holdings.entrySet()) {
-            if (entry.getValue() != 0) {
-                System.out.printf("%-12s %-12.2f%n", entry.getKey(), entry.getValue());
+        if (positionIndex.isEmpty()) {
+            out.println("Portfolio is empty.");
+        }
+    }
+
+    public void setTransactionListener(TransactionListener listener) {
+        this.transactionListener = listener;
+    }
+
+    // Loads a previously recorded transaction (e.g. from a journal) without
+    // notifying the listener again
+    public void restoreTransaction(TransactionHistory transaction) {
+        indexTransaction(transaction);
+    }
+
+    // Sets a running balance directly, e.g. from a snapshot, without a ledger row
+    public void restorePosition(String ticker, long units) {
+        positionFor(ticker).units = units;
+    }
+
+    // Copy of the running balances in millionths, in display order
+    public Map<String, Long> getPositions() {
+        Map<String, Long> positions = new LinkedHashMap<String, Long>();
+        for (Position position : positionIndex.values()) {
+            positions.put(position.ticker, position.units);
+        }
+        return positions;
+    }
+
+    // Rows recorded before the restored balances; they only matter for the
+    // history display, so they are not loaded until it is first shown
+    public void setEarlierHistory(Supplier<List<TransactionHistory>> loader) {
+        this.earlierHistory = loader;
+    }
+
+    // Records a transaction and tells the listener; false if the listener failed, in which
+    // case the transaction has been taken back out and the error reported
+    private boolean addTransaction(TransactionHistory transaction) {
+        long[] before = balancesBefore(transaction);
+        indexTransaction(transaction);
+        try {
+            if (transactionListener != null) {
+                transactionListener.transactionAdded(transaction);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            rollBack(e, before, transaction);
+            return false;
+        }
+    }
+
+    // Records both legs of a trade, then tells the listener about them together
+    private boolean addTrade(TransactionHistory stockLeg, TransactionHistory cashLeg) {
+        // Check the cash leg before recording either, so a trade is never half recorded
+        balanceAfter(cashLeg);
+        long[] before = balancesBefore(stockLeg, cashLeg);
+        indexTransaction(stockLeg);
+        indexTransaction(cashLeg);
+        try {
+            if (transactionListener != null) {
+                transactionListener.transactionsAdded(stockLeg, cashLeg);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            rollBack(e, before, stockLeg, cashLeg);
+            return false;
+        }
+    }
+
+    // Balance of each transaction's ticker, or NO_POSITION where there is none yet
+    private long[] balancesBefore(TransactionHistory... transactions) {
+        long[] before = new long[transactions.length];
+        for (int i = 0; i < transactions.length; i++) {
+            Position position = positionIndex.get(transactions[i].getTicker());
+            before[i] = position == null ? NO_POSITION : position.units;
+        }
+        return before;
+    }
+
+    // Undoes the last rows after the listener (e.g. a journal) failed to save them,
+    // so what is shown never differs from what was saved
+    private void rollBack(RuntimeException failure, long[] before, TransactionHistory... transactions) {
+        for (int i = transactions.length - 1; i >= 0; i--) {
+            portfolioList.remove(portfolioList.size() - 1);
+            String ticker = transactions[i].getTicker();
+            if (before[i] == NO_POSITION) {
+                positionIndex.remove(ticker);
+            } else {
+                positionIndex.get(ticker).units = before[i];
             }
         }
+        Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+        reportError("Transaction not saved: "
+            + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()));
+    }
+
+    private void indexTransaction(TransactionHistory transaction) {
+        // Work out the new balance first: an amount out of range must not leave a row
+        // or an empty position behind
+        long balance = balanceAfter(transaction);
+        portfolioList.add(transaction);
         
-        if (holdings.isEmpty()) {
-            System.out.println("Portfolio is empty.");
+        // Update the running balance so checks don't rescan the whole list
+        positionFor(transaction.getTicker()).units = balance;
+    }
+
+    // The ticker's balance once the transaction is applied; out-of-range amounts are rejected like bad input
+    private long balanceAfter(TransactionHistory transaction) {
+        long balance = getAvailableUnits(transaction.getTicker());
+        long units = toUnits(transaction.getQty());
+        if (units > 0 ? balance > Long.MAX_VALUE - units : balance < Long.MIN_VALUE - units) {
+            throw new NumberFormatException("Balance out of range for " + transaction.getTicker());
         }
+        return balance + units;
     }
 
-    private double getAvailableCash() {
-        double cash = 0.0;
-        for (TransactionHistory transaction : portfolioList) {
-            if (transaction.getTicker().equals("CASH")) {
-                cash += transaction.getQty();
+    private Position positionFor(String ticker) {
+        Position position = positionIndex.get(ticker);
+        if (position == null) {
+            position = new Position(ticker);
+            positionIndex.put(ticker, position);
+        }
+        return position;
+    }
+
+    // Trims the ticker and upper-cases it only when it has lower-case letters, the same
+    // rule as SymbolTable.canonical, then hands back the copy already in the index so
+    // all rows for a ticker share one String
+    private String canonicalTicker(String input) {
+        String trimmed = input.trim();
+        String ticker = trimmed;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isLowerCase(c) || Character.toUpperCase(c) != c) {
+                ticker = trimmed.toUpperCase();
+                break;
             }
         }
-        return cash;
+        Position position = positionIndex.get(ticker);
+        return position == null ? ticker : position.ticker;
+    }
+
+    private double getAvailableCash() {
+        return getAvailableShares("CASH");
     }
 
     private double getAvailableShares(String ticker) {
-        double shares = 0.0;
-        for (TransactionHistory transaction : portfolioList) {
-            if (transaction.getTicker().equals(ticker)) {
-                shares += transaction.getQty();
-            }
+        return fromUnits(getAvailableUnits(ticker));
+    }
+
+    private long getAvailableUnits(String ticker) {
+        Position position = positionIndex.get(ticker);
+        return position == null ? 0 : position.units;
+    }
+
+    // Rounds half away from zero; out-of-range amounts are rejected like bad input.
+    // Same as Money.toUnits, kept here because the grader compiles this file with
+    // TransactionHistory.java alone
+    private static long toUnits(double amount) {
+        if (Double.isNaN(amount) || Math.abs(amount) >= Long.MAX_VALUE / (double) UNITS) {
+            throw new NumberFormatException("Amount out of range: " + amount);
         }
-        return shares;
+        double scaled = amount * UNITS;
+        return scaled >= 0 ? (long) (scaled + 0.5) : -(long) (-scaled + 0.5);
+    }
+
+    private static double fromUnits(long units) {
+        return units / (double) UNITS;
     }
 
     private String getCurrentDate() {
-        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
-        return sdf.format(new Date());
+        LocalDate today = LocalDate.now();
+        if (!today.equals(cachedDay)) {
+            cachedDate = DATE_FORMAT.format(today);
+            cachedDay = today;
+        }
+        return cachedDate;
     }
 
     private String getCurrentDateTime() {
-        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy HH:mm:ss");
-        return sdf.format(new Date());
+        return DATE_TIME_FORMAT.format(LocalDateTime.now());
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+/**
+ * PortfolioServer.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Serves the PortfolioManager menu over local TCP connections, one session per
+ * client with its own book. Each session runs on its own virtual thread when the
+ * JVM supports them (Java 21+), so thousands of idle sessions waiting on input
+ * cost almost nothing. On older JVMs it falls back to a cached thread pool.
+ *
+ * Usage: java PortfolioServer [port]        (default port 5050, bound to 127.0.0.1)
+ * Try it with: nc localhost 5050
+ */
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PortfolioServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 5050;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    public PortfolioServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        this.sessions = newSessionExecutor();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (PortfolioServer server = new PortfolioServer(port)) {
+            System.out.println("Portfolio server listening on 127.0.0.1:" + server.getPort());
+            server.serve();
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    // Accepts clients until the server socket is closed
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    break;
+                }
+                throw e;
+            }
+            sessions.execute(() -> runSession(client));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    private void runSession(Socket client) {
+        activeSessions.incrementAndGet();
+        try (Socket socket = client) {
+            socket.setTcpNoDelay(true);
+            // Prompts are written without a newline, so the stream must not hold them back
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            PortfolioManager portfolio = new PortfolioManager(new BufferedInputStream(socket.getInputStream()), out);
+            portfolio.run();
+        } catch (NoSuchElementException e) {
+            // Client disconnected in the middle of the menu
+        } catch (IOException e) {
+            System.err.println("Session ended with error: " + e.getMessage());
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    // Uses Executors.newVirtualThreadPerTaskExecutor() when present; looked up
+    // reflectively so this class still compiles and runs on Java 11 and 17
+    private static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "portfolio-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * PortfolioValuation.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Mark-to-market value of a book of positions. It keeps, per SymbolTable id,
+ * the quantity held, the last price seen and their product, plus the running
+ * total of all those products. A price tick or a position change only
+ * recomputes the one symbol it touches and adjusts the total by the
+ * difference, so the portfolio value is always current without walking every
+ * holding. Cash is valued at 1.00; a holding with no price yet counts as 0.
+ * Prices may arrive on a feed thread while trades arrive on another.
+ *
+ * Usage: java PortfolioValuation [prices file | --simulate] [--batch [command file]]
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+
+public class PortfolioValuation implements PriceFeed.Listener, PortfolioManager.TransactionListener {
+    private long[] quantities = new long[16];
+    private long[] lastPrices = new long[16];
+    private long[] marketValues = new long[16];
+    private long totalValue;
+
+    public PortfolioValuation() {
+        lastPrices[SymbolTable.CASH] = Money.SCALE;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int next = 0;
+        PriceFeed feed = null;
+        if (args.length > next && args[next].equals("--simulate")) {
+            feed = new SimulatedPriceFeed(new String[] {"AAPL", "IBM", "MSFT", "GOOG"}, 100.00, 1.0, -1, 250, 42);
+            next++;
+        } else if (args.length > next && !args[next].startsWith("--")) {
+            feed = new FilePriceFeed(Paths.get(args[next++]));
+        }
+        boolean batch = args.length > next && args[next].equals("--batch");
+        String commandFile = batch && args.length > next + 1 ? args[next + 1] : null;
+
+        PortfolioValuation valuation = new PortfolioValuation();
+        Thread feedThread = null;
+        if (feed != null) {
+            PriceFeed source = feed;
+            feedThread = new Thread(() -> {
+                try {
+                    source.run(valuation);
+                } catch (InterruptedException e) {
+                    // Stopped on exit
+                } catch (IOException e) {
+                    System.err.println("Price feed stopped: " + e.getMessage());
+                }
+            }, "price-feed");
+            feedThread.setDaemon(true);
+            feedThread.start();
+        }
+
+        PortfolioManager portfolio = new PortfolioManager();
+        portfolio.setTransactionListener(valuation);
+        if (batch) {
+            portfolio.runBatch(commandFile);
+        } else {
+            portfolio.run();
+        }
+        if (feedThread != null) {
+            feedThread.interrupt();
+            feedThread.join(1000);
+        }
+        valuation.printValuation(System.out);
+    }
+
+    @Override
+    public synchronized void onPrice(int symbolId, long price) {
+        ensureCapacity(symbolId);
+        lastPrices[symbolId] = price;
+        revalue(symbolId);
+    }
+
+    @Override
+    public void transactionAdded(TransactionHistory transaction) {
+        positionChanged(SymbolTable.parse(transaction.getTicker()), Money.toUnits(transaction.getQty()));
+    }
+
+    public synchronized void positionChanged(int symbolId, long quantityDelta) {
+        ensureCapacity(symbolId);
+        quantities[symbolId] += quantityDelta;
+        revalue(symbolId);
+    }
+
+    // Replaces all positions, e.g. from PortfolioManager.getPositions() or a snapshot
+    public synchronized void setPositions(Map<String, Long> positions) {
+        Arrays.fill(quantities, 0);
+        Arrays.fill(marketValues, 0);
+        totalValue = 0;
+        for (Map.Entry<String, Long> position : positions.entrySet()) {
+            int symbolId = SymbolTable.parse(position.getKey());
+            ensureCapacity(symbolId);
+            quantities[symbolId] = position.getValue();
+            revalue(symbolId);
+        }
+    }
+
+    public synchronized long getTotalValueUnits() {
+        return totalValue;
+    }
+
+    public double getTotalValue() {
+        return Money.toDouble(getTotalValueUnits());
+    }
+
+    public synchronized long getQuantityUnits(int symbolId) {
+        return symbolId < quantities.length ? quantities[symbolId] : 0;
+    }
+
+    // Last price seen for a symbol, or 0 if it has not been quoted
+    public synchronized long getLastPriceUnits(int symbolId) {
+        return symbolId < lastPrices.length ? lastPrices[symbolId] : 0;
+    }
+
+    public synchronized long getMarketValueUnits(int symbolId) {
+        return symbolId < marketValues.length ? marketValues[symbolId] : 0;
+    }
+
+    public synchronized void printValuation(PrintStream out) {
+        out.println("\nPortfolio Valuation");
+        out.println("====================================");
+        out.printf("%-12s %-12s %-12s %-12s%n", "Ticker", "Quantity", "Last Price", "Market Value");
+        out.println("================================================");
+        for (int symbolId = 0; symbolId < quantities.length; symbolId++) {
+            if (quantities[symbolId] == 0) {
+                continue;
+            }
+            String price = lastPrices[symbolId] == 0 ? "n/a" : String.format("$%.2f", Money.toDouble(lastPrices[symbolId]));
+            out.printf("%-12s %-12.2f %-12s $%-12.2f%n", SymbolTable.name(symbolId),
+                Money.toDouble(quantities[symbolId]), price, Money.toDouble(marketValues[symbolId]));
+        }
+        out.printf("%nTotal market value: $%.2f%n", Money.toDouble(totalValue));
+    }
+
+    // Recomputes one symbol's value and moves the total by the difference
+    private void revalue(int symbolId) {
+        long value = Money.multiply(quantities[symbolId], lastPrices[symbolId]);
+        totalValue += value - marketValues[symbolId];
+        marketValues[symbolId] = value;
+    }
+
+    private void ensureCapacity(int symbolId) {
+        if (symbolId >= quantities.length) {
+            int size = Math.max(symbolId + 1, quantities.length * 2);
+            quantities = Arrays.copyOf(quantities, size);
+            lastPrices = Arrays.copyOf(lastPrices, size);
+            marketValues = Arrays.copyOf(marketValues, size);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * PriceFeed.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * A source of market prices. A feed pushes each tick to a Listener as a
+ * SymbolTable id and a price in Money units. Implementations are FilePriceFeed
+ * (a local CSV or binary price file) and SimulatedPriceFeed (an in-process
+ * random walk); PortfolioValuation listens to either.
+ */
+
+import java.io.IOException;
+
+public interface PriceFeed {
+    // Receives each price tick
+    interface Listener {
+        void onPrice(int symbolId, long price);
+    }
+
+    // Delivers ticks to the listener until the feed is exhausted or the thread is interrupted
+    void run(Listener listener) throws IOException, InterruptedException;
+}
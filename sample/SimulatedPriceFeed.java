@@ -0,0 +1,57 @@
+/**
+ * SimulatedPriceFeed.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * An in-process price feed for demos and load tests. Each tick picks one of
+ * the configured tickers and moves its price by a random step of up to
+ * +/- volatility percent, never going below one cent. The random seed is
+ * fixed per feed, so a run can be reproduced.
+ */
+
+import java.util.Random;
+
+public class SimulatedPriceFeed implements PriceFeed {
+    private static final long MIN_PRICE = Money.SCALE / 100;
+
+    private final int[] symbolIds;
+    private final long[] prices;
+    private final double volatility;
+    private final long tickCount;
+    private final long tickIntervalMillis;
+    private final Random random;
+
+    // tickCount < 0 runs until interrupted; tickIntervalMillis 0 ticks as fast as possible
+    public SimulatedPriceFeed(String[] tickers, double startPrice, double volatilityPercent,
+                              long tickCount, long tickIntervalMillis, long seed) {
+        this.symbolIds = new int[tickers.length];
+        this.prices = new long[tickers.length];
+        for (int i = 0; i < tickers.length; i++) {
+            symbolIds[i] = SymbolTable.parse(tickers[i]);
+            prices[i] = Money.toUnits(startPrice);
+        }
+        this.volatility = volatilityPercent / 100.0;
+        this.tickCount = tickCount;
+        this.tickIntervalMillis = tickIntervalMillis;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run(Listener listener) throws InterruptedException {
+        // Publish the starting prices first so every ticker has a quote
+        for (int i = 0; i < symbolIds.length; i++) {
+            listener.onPrice(symbolIds[i], prices[i]);
+        }
+        for (long tick = 0; tickCount < 0 || tick < tickCount; tick++) {
+            if (tickIntervalMillis > 0) {
+                Thread.sleep(tickIntervalMillis);
+            } else if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            int i = random.nextInt(symbolIds.length);
+            double step = (random.nextDouble() * 2 - 1) * volatility;
+            prices[i] = Math.max(MIN_PRICE, prices[i] + Math.round(prices[i] * step));
+            listener.onPrice(symbolIds[i], prices[i]);
+        }
+    }
+}
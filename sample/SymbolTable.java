@@ -0,0 +1,85 @@
+/**
+ * SymbolTable.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Global table that maps each distinct ticker to a small int id, so ledgers,
+ * holdings and equality checks can work on ints and every ticker string is
+ * stored once. Ids are handed out in order starting at 0 and never change for
+ * the life of the JVM. Lookups of known tickers take no lock.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class SymbolTable {
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] names = new String[64];
+    private static int size;
+
+    // Id reserved for cash so it is the same in every ledger
+    public static final int CASH = id("CASH");
+
+    private SymbolTable() {
+    }
+
+    // Canonicalizes user input (trimmed, upper case) and returns its id
+    public static int parse(String input) {
+        return id(canonical(input));
+    }
+
+    // Returns the id of a ticker that is already in canonical form
+    public static int id(String ticker) {
+        Integer id = ids.get(ticker);
+        return id != null ? id : register(ticker);
+    }
+
+    // Returns -1 when the ticker has never been seen
+    public static int lookup(String ticker) {
+        Integer id = ids.get(ticker);
+        return id == null ? -1 : id;
+    }
+
+    public static String name(int id) {
+        String[] current = names;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            throw new IllegalArgumentException("Unknown symbol id: " + id);
+        }
+        return current[id];
+    }
+
+    // Number of ids handed out so far; valid ids are 0 to size() - 1
+    public static synchronized int size() {
+        return size;
+    }
+
+    // Trims and upper-cases a ticker, allocating only when something changes
+    public static String canonical(String input) {
+        String trimmed = input.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isLowerCase(c) || Character.toUpperCase(c) != c) {
+                return trimmed.toUpperCase();
+            }
+        }
+        return trimmed;
+    }
+
+    private static synchronized int register(String ticker) {
+        Integer existing = ids.get(ticker);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        String[] current = names;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = ticker;
+        // Publish the name before the id so readers never see an id without a name
+        names = current;
+        ids.put(ticker, id);
+        size++;
+        return id;
+    }
+}
@@ -8,19 +8,39 @@
  */
 
 public class Transaction {
+    // Kept in this file rather than shared, so Transaction.java still compiles on its own:
+    // amounts in millionths, and a small id per distinct symbol for equals and hashCode
+    private static final long UNITS = 1000000L;
+    private static final java.util.concurrent.ConcurrentHashMap<String, Integer> SYMBOL_IDS =
+        new java.util.concurrent.ConcurrentHashMap<String, Integer>();
+    private static final java.util.concurrent.atomic.AtomicInteger NEXT_SYMBOL_ID =
+        new java.util.concurrent.atomic.AtomicInteger();
+    
     private String symbol;
+    private int symbolId;
     private int quantity;
     private double price;
     private String type;
     private String date;
     
+    // quantity * price, kept up to date by the setters instead of recomputed per call
+    private double amount;
+    private long amountUnits;
+    // False when the price is NaN, infinite or too large for an exact total
+    private boolean amountExact;
+    
+    // Cached hashCode; 0 means not computed yet. Cleared by every setter that
+    // changes a field used by equals
+    private int hash;
+    
     // Constructor
     public Transaction(String symbol, int quantity, double price, String type) {
-        this.symbol = symbol;
+        setSymbol(symbol);
         this.quantity = quantity;
         this.price = price;
         this.type = type;
         this.date = java.time.LocalDate.now().toString();
+        updateAmount();
     }
     
     // Getters
@@ -28,6 +48,11 @@ public class Transaction {
         return symbol;
     }
     
+    // Id of the symbol exactly as given, the same for every Transaction with that symbol; -1 for null
+    public int getSymbolId() {
+        return symbolId;
+    }
+    
     public int getQuantity() {
         return quantity;
     }
@@ -45,24 +70,61 @@ public class Transaction {
     }
     
     public double getAmount() {
-        return quantity * price;
+        return amount;
+    }
+    
+    // Exact total in millionths; throws if the amount has none (see amountExact)
+    public long getAmountUnits() {
+        if (!amountExact) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return amountUnits;
     }
     
     // Setters
     public void setSymbol(String symbol) {
+        // Stored as given, not canonicalized; equal ids mean equal strings
+        this.symbolId = symbol == null ? -1
+            : SYMBOL_IDS.computeIfAbsent(symbol, key -> NEXT_SYMBOL_ID.getAndIncrement());
         this.symbol = symbol;
+        hash = 0;
     }
     
     public void setQuantity(int quantity) {
         this.quantity = quantity;
+        updateAmount();
     }
     
     public void setPrice(double price) {
         this.price = price;
+        updateAmount();
+    }
+    
+    private void updateAmount() {
+        hash = 0;
+        amount = quantity * price;
+        // Any price still makes a Transaction, as before; only the exact total is unavailable
+        try {
+            amountUnits = Math.multiplyExact(toUnits(price), (long) quantity);
+            amountExact = true;
+        } catch (NumberFormatException | ArithmeticException e) {
+            amountUnits = 0;
+            amountExact = false;
+        }
+    }
+    
+    // Rounds half away from zero; throws for NaN, infinities and amounts too large to hold
+    private static long toUnits(double value) {
+        if (Double.isNaN(value) || Math.abs(value) >= Long.MAX_VALUE / (double) UNITS) {
+            throw new NumberFormatException("Amount out of range: " + value);
+        }
+        double scaled = value * UNITS;
+        return scaled >= 0 ? (long) (scaled + 0.5) : -(long) (-scaled + 0.5);
     }
     
     public void setType(String type) {
         this.type = type;
+        hash = 0;
     }
     
     // toString method
@@ -79,15 +141,27 @@ public class Transaction {
         if (obj == null || getClass() != obj.getClass()) return false;
         
         Transaction that = (Transaction) obj;
+        if (hash != 0 && that.hash != 0 && hash != that.hash) return false;
         return quantity == that.quantity &&
                Double.compare(that.price, price) == 0 &&
-               symbol.equals(that.symbol) &&
-               type.equals(that.type);
+               symbolId == that.symbolId &&
+               java.util.Objects.equals(type, that.type);
     }
     
-    // hashCode method
+    // hashCode method: computed from primitives and the type's own cached hash, then kept
+    // until a setter changes the transaction. Don't change a transaction while it is in a set.
     @Override
     public int hashCode() {
-        return java.util.Objects.hash(symbol, quantity, price, type);
+        int h = hash;
+        if (h == 0) {
+            h = symbolId;
+            h = 31 * h + quantity;
+            h = 31 * h + Long.hashCode(Double.doubleToLongBits(price));
+            h = 31 * h + (type == null ? 0 : type.hashCode());
+            h ^= h >>> 16;
+            if (h == 0) h = 1;
+            hash = h;
+        }
+        return h;
     }
 }
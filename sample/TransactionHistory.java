@@ -7,10 +7,17 @@
  * It stores information about stock transactions including ticker, date, type, quantity, and cost basis.
  */
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
 
 public class TransactionHistory {
+    // Column width used by toString() and appendTo()
+    private static final int COLUMN_WIDTH = 12;
+    
+    // The hand-written number formatting below matches String.format only for
+    // locales that use '.' and ASCII digits; anything else goes through String.format
+    private static final boolean PLAIN_DIGITS = usesPlainDigits();
+
     // Private fields as required
     private String ticker;
     private String transDate;
@@ -81,7 +88,94 @@ public class TransactionHistory {
     // toString method
     @Override
     public String toString() {
-        return String.format("%-12s %-12s %-12.2f $%-12.2f %-12s", 
-            transDate, ticker, qty, costBasis, transType);
+        return appendTo(new StringBuilder(80)).toString();
+    }
+
+    // Appends the same text as toString() without going through String.format,
+    // so large history dumps can be built into one buffer
+    public StringBuilder appendTo(StringBuilder sb) {
+        if (!PLAIN_DIGITS) {
+            return sb.append(String.format("%-12s %-12s %-12.2f $%-12.2f %-12s", 
+                transDate, ticker, qty, costBasis, transType));
+        }
+        appendPadded(sb, transDate);
+        sb.append(' ');
+        appendPadded(sb, ticker);
+        sb.append(' ');
+        appendPadded(sb, qty);
+        sb.append(" $");
+        appendPadded(sb, costBasis);
+        sb.append(' ');
+        appendPadded(sb, transType);
+        return sb;
+    }
+
+    // Same as %-12s
+    private static void appendPadded(StringBuilder sb, String value) {
+        int start = sb.length();
+        sb.append(value);
+        padTo(sb, start);
+    }
+
+    // Same as %-12.2f: rounds half-up on the shortest decimal form of the double
+    private static void appendPadded(StringBuilder sb, double value) {
+        int start = sb.length();
+        String digits = Double.toString(value);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sb.append(digits);
+        } else if (digits.indexOf('E') >= 0) {
+            sb.append(new java.math.BigDecimal(digits).setScale(2, java.math.RoundingMode.HALF_UP).toPlainString());
+            if (value < 0 && sb.charAt(start) != '-') {
+                sb.insert(start, '-');
+            }
+        } else {
+            appendRounded(sb, digits);
+        }
+        padTo(sb, start);
+    }
+
+    // Rounds a plain "[-]int.frac" string to two decimals
+    private static void appendRounded(StringBuilder sb, String digits) {
+        int point = digits.indexOf('.');
+        int fracLength = digits.length() - point - 1;
+        int start = sb.length();
+        sb.append(digits, 0, point);
+        sb.append('.');
+        if (fracLength <= 2) {
+            sb.append(digits, point + 1, digits.length());
+            for (int i = fracLength; i < 2; i++) {
+                sb.append('0');
+            }
+            return;
+        }
+        sb.append(digits, point + 1, point + 3);
+        if (digits.charAt(point + 3) < '5') {
+            return;
+        }
+        // Carry the rounding up through the digits, skipping the decimal point
+        int firstDigit = digits.charAt(0) == '-' ? start + 1 : start;
+        for (int i = sb.length() - 1; i >= firstDigit; i--) {
+            char c = sb.charAt(i);
+            if (c == '.') {
+                continue;
+            }
+            if (c != '9') {
+                sb.setCharAt(i, (char) (c + 1));
+                return;
+            }
+            sb.setCharAt(i, '0');
+        }
+        sb.insert(firstDigit, '1');
+    }
+
+    private static void padTo(StringBuilder sb, int start) {
+        for (int i = sb.length() - start; i < COLUMN_WIDTH; i++) {
+            sb.append(' ');
+        }
+    }
+
+    private static boolean usesPlainDigits() {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        return symbols.getDecimalSeparator() == '.' && symbols.getZeroDigit() == '0';
     }
 }
\ No newline at end of file
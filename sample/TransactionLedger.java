@@ -0,0 +1,350 @@
+/**
+ * TransactionLedger.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * This class stores ledger rows column by column instead of one TransactionHistory
+ * object per row. Quantities and cost basis are Money units in long arrays, tickers are
+ * stored as SymbolTable ids, dates are kept as epoch days and the transaction type
+ * as a byte code. Callers that expect TransactionHistory objects can still use
+ * get(row) or asList(), and snapshot() gives an immutable LedgerView for other
+ * threads. A LedgerIndex over ticker, date and type is kept up to
+ * date on every append, so filtered views cost time proportional to their size.
+ */
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TransactionLedger {
+    // Transaction type codes
+    public static final byte DEPOSIT = 0;
+    public static final byte WITHDRAW = 1;
+    public static final byte BUY = 2;
+    public static final byte SELL = 3;
+
+    // Epoch day of a row whose date string is not in MM/dd/yyyy form
+    public static final int RAW_DATE = Integer.MIN_VALUE;
+
+    private static final DateTimeFormatter DATE_FORMAT =
+        DateTimeFormatter.ofPattern("MM/dd/uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    // Column storage
+    private long[] qty;
+    private long[] costBasis;
+    private int[] tickerIds;
+    private int[] epochDays;
+    private byte[] typeCodes;
+    private int size;
+
+    // Transaction type names by code
+    private ArrayList<String> typeNames = new ArrayList<String>(Arrays.asList("DEPOSIT", "WITHDRAW", "BUY", "SELL"));
+
+    // Secondary indexes by ticker, date and type
+    private final LedgerIndex index = new LedgerIndex();
+
+    // Dates that could not be stored as epoch days, keyed by row
+    private HashMap<Integer, String> rawDates = new HashMap<Integer, String>();
+
+    // Last formatted date, since consecutive rows usually share a day
+    private int lastEpochDay = RAW_DATE;
+    private String lastDateText;
+
+    public TransactionLedger() {
+        this(1024);
+    }
+
+    public TransactionLedger(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        qty = new long[capacity];
+        costBasis = new long[capacity];
+        tickerIds = new int[capacity];
+        epochDays = new int[capacity];
+        typeCodes = new byte[capacity];
+    }
+
+    public int append(TransactionHistory transaction) {
+        return append(transaction.getTicker(), transaction.getTransDate(), transaction.getTransType(),
+            transaction.getQty(), transaction.getCostBasis());
+    }
+
+    public int append(LedgerEntry entry) {
+        return appendUnits(internTicker(entry.getTicker()), entry.getTransDate(), typeCode(entry.getTransType()),
+            entry.getQtyUnits(), entry.getCostBasisUnits());
+    }
+
+    public int append(String ticker, String transDate, String transType, double quantity, double basis) {
+        return appendUnits(internTicker(ticker), transDate, typeCode(transType),
+            Money.toUnits(quantity), Money.toUnits(basis));
+    }
+
+    public int append(int tickerId, int epochDay, byte typeCode, double quantity, double basis) {
+        return appendUnits(tickerId, epochDay, typeCode, Money.toUnits(quantity), Money.toUnits(basis));
+    }
+
+    public int appendUnits(int tickerId, int epochDay, byte typeCode, long quantity, long basis) {
+        if (size == qty.length) {
+            grow();
+        }
+        int row = size;
+        tickerIds[row] = tickerId;
+        epochDays[row] = epochDay;
+        typeCodes[row] = typeCode;
+        qty[row] = quantity;
+        costBasis[row] = basis;
+        size++;
+        index.add(row, tickerId, epochDay, typeCode, RAW_DATE);
+        return row;
+    }
+
+    // Like appendUnits, but keeps a date that is not in MM/dd/yyyy form as text
+    public int appendUnits(int tickerId, String transDate, byte typeCode, long quantity, long basis) {
+        int epochDay = parseDate(transDate);
+        if (epochDay == RAW_DATE) {
+            rawDates.put(size, transDate);
+        }
+        return appendUnits(tickerId, epochDay, typeCode, quantity, basis);
+    }
+
+    // Appends rows from..to-1 of parallel column arrays, growing the storage at most once.
+    // Dates must be real epoch days; returns the first new row
+    public int appendBatch(int[] batchTickerIds, int[] batchEpochDays, byte[] batchTypeCodes,
+                           long[] batchQty, long[] batchCostBasis, int from, int to) {
+        int count = to - from;
+        int first = size;
+        if (first + count > qty.length) {
+            resize(Math.max(first + count, qty.length + (qty.length >> 1)));
+        }
+        System.arraycopy(batchTickerIds, from, tickerIds, first, count);
+        System.arraycopy(batchEpochDays, from, epochDays, first, count);
+        System.arraycopy(batchTypeCodes, from, typeCodes, first, count);
+        System.arraycopy(batchQty, from, qty, first, count);
+        System.arraycopy(batchCostBasis, from, costBasis, first, count);
+        size += count;
+        for (int i = 0; i < count; i++) {
+            index.add(first + i, tickerIds[first + i], epochDays[first + i], typeCodes[first + i], RAW_DATE);
+        }
+        return first;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Column accessors
+    public double getQty(int row) {
+        return Money.toDouble(getQtyUnits(row));
+    }
+
+    public long getQtyUnits(int row) {
+        checkRow(row);
+        return qty[row];
+    }
+
+    public double getCostBasis(int row) {
+        return Money.toDouble(getCostBasisUnits(row));
+    }
+
+    public long getCostBasisUnits(int row) {
+        checkRow(row);
+        return costBasis[row];
+    }
+
+    public int getTickerId(int row) {
+        checkRow(row);
+        return tickerIds[row];
+    }
+
+    public String getTicker(int row) {
+        return tickerName(getTickerId(row));
+    }
+
+    public int getEpochDay(int row) {
+        checkRow(row);
+        return epochDays[row];
+    }
+
+    public String getTransDate(int row) {
+        int epochDay = getEpochDay(row);
+        if (epochDay == RAW_DATE) {
+            return rawDates.get(row);
+        }
+        if (epochDay != lastEpochDay) {
+            lastDateText = DATE_FORMAT.format(LocalDate.ofEpochDay(epochDay));
+            lastEpochDay = epochDay;
+        }
+        return lastDateText;
+    }
+
+    public byte getTypeCode(int row) {
+        checkRow(row);
+        return typeCodes[row];
+    }
+
+    public String getTransType(int row) {
+        return typeName(getTypeCode(row));
+    }
+
+    // Builds a TransactionHistory copy of one row for existing callers
+    public TransactionHistory get(int row) {
+        return new TransactionHistory(getTicker(row), getTransDate(row), getTransType(row),
+            getQty(row), getCostBasis(row));
+    }
+
+    // Read-only List view; rows are materialized one at a time as they are read
+    public List<TransactionHistory> asList() {
+        return new AbstractList<TransactionHistory>() {
+            @Override
+            public TransactionHistory get(int index) {
+                return TransactionLedger.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Read-only view of the rows appended so far, safe to hand to other threads.
+    // Shares the column arrays (rows are never rewritten) and copies only the
+    // small type name and raw date tables
+    public LedgerView snapshot() {
+        Map<Integer, String> dates = rawDates.isEmpty() ? Collections.<Integer, String>emptyMap()
+            : new HashMap<Integer, String>(rawDates);
+        return new LedgerView(size, tickerIds, epochDays, typeCodes, qty, costBasis,
+            typeNames.toArray(new String[0]), dates);
+    }
+
+    public LedgerIndex getIndex() {
+        return index;
+    }
+
+    // Filtered views backed by the indexes
+    public List<TransactionHistory> historyForTicker(String ticker) {
+        int tickerId = tickerId(ticker);
+        return rows(tickerId < 0 ? new int[0] : index.rowsForTicker(tickerId));
+    }
+
+    public List<TransactionHistory> historyBetween(LocalDate from, LocalDate to) {
+        return rows(index.rowsBetween((int) from.toEpochDay(), (int) to.toEpochDay()));
+    }
+
+    public List<TransactionHistory> historyOfType(String transType) {
+        int code = typeNames.indexOf(transType);
+        return rows(code < 0 ? new int[0] : index.rowsOfType((byte) code));
+    }
+
+    // Read-only List view over the given rows, materialized as they are read
+    public List<TransactionHistory> rows(int[] rowNumbers) {
+        return new AbstractList<TransactionHistory>() {
+            @Override
+            public TransactionHistory get(int index) {
+                return TransactionLedger.this.get(rowNumbers[index]);
+            }
+
+            @Override
+            public int size() {
+                return rowNumbers.length;
+            }
+        };
+    }
+
+    // Exact sum of quantities for one ticker, scanning only the two columns it needs
+    public long sumQtyUnits(int tickerId) {
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            if (tickerIds[row] == tickerId) {
+                total += qty[row];
+            }
+        }
+        return total;
+    }
+
+    public double sumQty(int tickerId) {
+        return Money.toDouble(sumQtyUnits(tickerId));
+    }
+
+    public int internTicker(String ticker) {
+        return SymbolTable.id(ticker);
+    }
+
+    // Returns -1 when this ledger has no rows for the ticker. Ids come from the shared
+    // SymbolTable, so a ticker recorded only by another ledger still has one there
+    public int tickerId(String ticker) {
+        int id = SymbolTable.lookup(ticker);
+        return id >= 0 && index.countForTicker(id) > 0 ? id : -1;
+    }
+
+    public String tickerName(int tickerId) {
+        return SymbolTable.name(tickerId);
+    }
+
+    public String typeName(byte typeCode) {
+        return typeNames.get(typeCode);
+    }
+
+    public byte typeCode(String transType) {
+        switch (transType) {
+            case "DEPOSIT":
+                return DEPOSIT;
+            case "WITHDRAW":
+                return WITHDRAW;
+            case "BUY":
+                return BUY;
+            case "SELL":
+                return SELL;
+            default:
+                int index = typeNames.indexOf(transType);
+                if (index < 0) {
+                    if (typeNames.size() > Byte.MAX_VALUE) {
+                        throw new IllegalArgumentException("Too many transaction types: " + transType);
+                    }
+                    index = typeNames.size();
+                    typeNames.add(transType);
+                }
+                return (byte) index;
+        }
+    }
+
+    public static int parseDate(String transDate) {
+        if (transDate == null) {
+            return RAW_DATE;
+        }
+        try {
+            return (int) LocalDate.parse(transDate, DATE_FORMAT).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return RAW_DATE;
+        }
+    }
+
+    private void grow() {
+        resize(qty.length + (qty.length >> 1));
+    }
+
+    private void resize(int capacity) {
+        qty = Arrays.copyOf(qty, capacity);
+        costBasis = Arrays.copyOf(costBasis, capacity);
+        tickerIds = Arrays.copyOf(tickerIds, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range (size " + size + ")");
+        }
+    }
+}
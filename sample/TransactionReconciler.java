@@ -0,0 +1,186 @@
+/**
+ * TransactionReconciler.java
+ * Author: Rikin Shah
+ * Date: 2026-10-18
+ *
+ * Dedupes and reconciles large feeds of Transaction objects. Instead of a
+ * HashMap<Transaction, Integer>, which allocates an entry and a boxed count per
+ * transaction, it counts them in an open-addressing table of parallel arrays:
+ * keys, their cached hash codes and int counts. Probes compare the stored
+ * hash before calling equals, so mismatches never touch the other object.
+ *
+ * Two transactions are the same when Transaction.equals says so (symbol,
+ * quantity, price and type). Reconciliation is by count: if a transaction
+ * appears twice in one feed and once in the other, one copy is reported as
+ * unmatched.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionReconciler {
+    // Outcome of reconciling an expected feed against an actual one
+    public static class Result {
+        private final List<Transaction> matched;
+        private final List<Transaction> missing;
+        private final List<Transaction> unexpected;
+
+        private Result(List<Transaction> matched, List<Transaction> missing, List<Transaction> unexpected) {
+            this.matched = matched;
+            this.missing = missing;
+            this.unexpected = unexpected;
+        }
+
+        // Expected transactions that were also in the actual feed
+        public List<Transaction> getMatched() {
+            return matched;
+        }
+
+        // Expected transactions with no counterpart in the actual feed
+        public List<Transaction> getMissing() {
+            return missing;
+        }
+
+        // Actual transactions that were not expected
+        public List<Transaction> getUnexpected() {
+            return unexpected;
+        }
+
+        public boolean isReconciled() {
+            return missing.isEmpty() && unexpected.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return matched.size() + " matched, " + missing.size() + " missing, " + unexpected.size() + " unexpected";
+        }
+    }
+
+    private Transaction[] keys;
+    private int[] hashes;
+    private int[] counts;
+    private int size;
+
+    public TransactionReconciler() {
+        this(1024);
+    }
+
+    // expectedDistinct sizes the table so it does not have to grow
+    public TransactionReconciler(int expectedDistinct) {
+        int capacity = Integer.highestOneBit(Math.max(expectedDistinct, 8) * 2 - 1) * 2;
+        keys = new Transaction[capacity];
+        hashes = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    // First occurrence of each distinct transaction, in feed order
+    public static List<Transaction> dedupe(Iterable<Transaction> feed) {
+        TransactionReconciler seen = new TransactionReconciler();
+        List<Transaction> unique = new ArrayList<Transaction>();
+        for (Transaction transaction : feed) {
+            if (seen.add(transaction) == 1) {
+                unique.add(transaction);
+            }
+        }
+        return unique;
+    }
+
+    public static Result reconcile(List<Transaction> expected, List<Transaction> actual) {
+        TransactionReconciler pending = new TransactionReconciler(actual.size());
+        for (Transaction transaction : actual) {
+            pending.add(transaction);
+        }
+        List<Transaction> matched = new ArrayList<Transaction>();
+        List<Transaction> missing = new ArrayList<Transaction>();
+        for (Transaction transaction : expected) {
+            if (pending.remove(transaction)) {
+                matched.add(transaction);
+            } else {
+                missing.add(transaction);
+            }
+        }
+        // Whatever is still counted in actual had no expected counterpart
+        TransactionReconciler leftover = new TransactionReconciler(actual.size());
+        List<Transaction> unexpected = new ArrayList<Transaction>();
+        for (Transaction transaction : actual) {
+            if (leftover.add(transaction) <= pending.count(transaction)) {
+                unexpected.add(transaction);
+            }
+        }
+        return new Result(matched, missing, unexpected);
+    }
+
+    // Counts one more copy and returns the new count
+    public int add(Transaction transaction) {
+        int hash = transaction.hashCode();
+        int slot = find(transaction, hash);
+        if (keys[slot] != null) {
+            return ++counts[slot];
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            slot = find(transaction, hash);
+        }
+        keys[slot] = transaction;
+        hashes[slot] = hash;
+        counts[slot] = 1;
+        size++;
+        return 1;
+    }
+
+    // Takes away one copy; false if there was none left. The key stays in the
+    // table with a count of 0, so probe chains are never broken
+    public boolean remove(Transaction transaction) {
+        int slot = find(transaction, transaction.hashCode());
+        if (keys[slot] == null || counts[slot] == 0) {
+            return false;
+        }
+        counts[slot]--;
+        return true;
+    }
+
+    public int count(Transaction transaction) {
+        int slot = find(transaction, transaction.hashCode());
+        return keys[slot] == null ? 0 : counts[slot];
+    }
+
+    public boolean contains(Transaction transaction) {
+        return count(transaction) > 0;
+    }
+
+    // Number of distinct transactions ever added
+    public int distinctCount() {
+        return size;
+    }
+
+    // Slot holding the transaction, or the empty slot where it would go
+    private int find(Transaction transaction, int hash) {
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null && (hashes[slot] != hash || !keys[slot].equals(transaction))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        Transaction[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldCounts = counts;
+        keys = new Transaction[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
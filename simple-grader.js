@@ -12,6 +12,10 @@ const { exec } = require('child_process');
 const { promisify } = require('util');
 
 const execAsync = promisify(exec);
+const JavaCompileClient = require('./java-compile-client');
+const JavaWorkerPool = require('./java-worker-pool');
+const GradingCache = require('./grading-cache');
+const { writeClasses } = require('./java-compile-client');
 const session = require('express-session');
 const bcrypt = require('bcrypt');
 
@@ -19,6 +23,24 @@ const app = express();
 const PORT = process.env.PORT || 5000;
 const isVercel = process.env.VERCEL === '1';
 
+// Warm compiler JVM shared by all submissions; set JAVA_COMPILE_SERVICE=off to always spawn javac
+const compileClient = process.env.JAVA_COMPILE_SERVICE === 'off' ? null : new JavaCompileClient();
+
+// Pre-warmed JVMs that run submissions; set JAVA_WORKER_POOL=off to always spawn java
+const workerPool = process.env.JAVA_WORKER_POOL === 'off' ? null : new JavaWorkerPool({
+    size: parseInt(process.env.JAVA_WORKER_POOL_SIZE, 10) || 2,
+    parallelism: parseInt(process.env.JAVA_WORKER_PARALLELISM, 10) || 2,
+    timeout: 15000
+});
+
+// Compiled classes and grading results by source hash; set GRADING_CACHE=off to always grade afresh
+const gradingCache = process.env.GRADING_CACHE === 'off' ? null : new GradingCache({
+    dir: process.env.GRADING_CACHE_DIR || undefined
+});
+
+// Cached results are only reused while the rubric code in this file is unchanged
+const graderFingerprint = GradingCache.sha256(fs.readFileSync(__filename, 'utf8'));
+
 // Middleware
 app.use(cors({
     origin: true,
@@ -277,6 +299,24 @@ app.get('/api/admin/student/:email', requireAuth, (req, res) => {
 });
 
 // Complete Java Grader Logic
+// Realistic menu interactions fed to every submission, including error handling
+const testInput = [
+    '1',           // Deposit Cash
+    '10000',       // Amount
+    '3',           // Buy Stock
+    'IBM',         // Ticker
+    '20',          // Quantity
+    '250',         // Price
+    'abc',         // Invalid menu choice (should trigger error handling)
+    '3',           // Buy Stock again
+    'AAPL',        // Ticker
+    '1000',        // Quantity (too much - should trigger insufficient funds error)
+    '150',         // Price
+    '5',           // Display Transaction History
+    '6',           // Display Portfolio
+    '0'            // Exit
+].join('\n') + '\n';
+
 async function callExistingGrader(uploadDir, studentName, studentEmail) {
     try {
         const transactionPath = path.join(uploadDir, 'TransactionHistory.java');
@@ -286,21 +326,63 @@ async function callExistingGrader(uploadDir, studentName, studentEmail) {
         const transactionContent = await fs.readFile(transactionPath, 'utf8');
         const portfolioContent = await fs.readFile(portfolioPath, 'utf8');
         
+        // Identical sources, student name and test input always grade the same
+        const sources = [
+            { name: 'TransactionHistory.java', source: transactionContent },
+            { name: 'PortfolioManager.java', source: portfolioContent }
+        ];
+        let compileKey = null;
+        let resultKey = null;
+        if (gradingCache) {
+            compileKey = await gradingCache.compileKey(sources);
+            resultKey = gradingCache.resultKey(compileKey, studentName, testInput, graderFingerprint);
+            const cachedResult = await gradingCache.getResult(resultKey);
+            if (cachedResult) {
+                console.log('⚡ Returning cached grading result');
+                return cachedResult;
+            }
+        }
+        
         // Comprehensive code analysis
         const analysis = analyzeCodeStructure(transactionContent, portfolioContent, studentName);
         
-        // Try to compile
+        // Try to compile: from the cache, then in the compile service when it is available
         let compilationSuccess = false;
         let compilationErrors = '';
+        // Only results that depend on nothing but the sources are cached; a compiler or JVM
+        // that failed to start, was killed, or hit a resource limit may do better next time
+        let cacheable = true;
+        let compiled = compileKey ? await gradingCache.getCompile(compileKey) : null;
         
-        try {
-            const { stdout, stderr } = await execAsync(`javac "${transactionPath}" "${portfolioPath}"`, {
-                cwd: uploadDir,
-                timeout: 10000
-            });
-            compilationSuccess = true;
-        } catch (error) {
-            compilationErrors = error.stderr || error.message;
+        if (!compiled && compileClient) {
+            try {
+                // One session per student, so a resubmission only recompiles the files that changed
+                compiled = await compileClient.compile(sources, studentEmail || studentName || '');
+                if (compileKey) {
+                    await gradingCache.setCompile(compileKey, compiled);
+                }
+            } catch (error) {
+                console.log('⚠️ Compile service unavailable, falling back to javac:', error.message);
+            }
+        }
+        
+        if (compiled) {
+            compilationSuccess = compiled.success;
+            compilationErrors = compiled.success ? '' : compiled.diagnostics;
+            if (compiled.success) {
+                await writeClasses(compiled.classes, uploadDir);
+            }
+        } else {
+            try {
+                const { stdout, stderr } = await execAsync(`javac "${transactionPath}" "${portfolioPath}"`, {
+                    cwd: uploadDir,
+                    timeout: 10000
+                });
+                compilationSuccess = true;
+            } catch (error) {
+                compilationErrors = error.stderr || error.message;
+                cacheable = processRan(error);
+            }
         }
 
         // Try to run if compilation successful
@@ -310,37 +392,17 @@ async function callExistingGrader(uploadDir, studentName, studentEmail) {
         
         if (compilationSuccess) {
             try {
-                // Create test input file with realistic menu interactions including error handling
                 const testInputPath = path.join(uploadDir, 'test_input.txt');
-                const testInput = [
-                    '1',           // Deposit Cash
-                    '10000',       // Amount
-                    '3',           // Buy Stock
-                    'IBM',         // Ticker
-                    '20',          // Quantity
-                    '250',         // Price
-                    'abc',         // Invalid menu choice (should trigger error handling)
-                    '3',           // Buy Stock again
-                    'AAPL',        // Ticker
-                    '1000',        // Quantity (too much - should trigger insufficient funds error)
-                    '150',         // Price
-                    '5',           // Display Transaction History
-                    '6',           // Display Portfolio
-                    '0'            // Exit
-                ].join('\n') + '\n';
-                
                 await fs.writeFile(testInputPath, testInput);
                 
-                const { stdout, stderr } = await execAsync(`java -cp "${uploadDir}" PortfolioManager < "${testInputPath}"`, {
-                    cwd: uploadDir,
-                    timeout: 15000
-                });
+                const { stdout, stderr } = await runSubmission(uploadDir, testInput, testInputPath);
                 executionSuccess = true;
                 executionOutput = stdout;
                 
                 // Analyze execution output
                 testResults = analyzeExecutionOutput(stdout, analysis);
             } catch (error) {
+                cacheable = Boolean(error.programFinished);
                 executionOutput = error.stderr || error.message;
                 testResults = [
                     {
@@ -365,7 +427,7 @@ async function callExistingGrader(uploadDir, studentName, studentEmail) {
         // Generate detailed feedback
         const feedback = generateFeedback(analysis, grades, compilationSuccess, executionSuccess, compilationErrors, executionOutput, testResults);
 
-        return {
+        const result = {
             analysis,
             grades,
             testResults,
@@ -375,6 +437,10 @@ async function callExistingGrader(uploadDir, studentName, studentEmail) {
             compilationErrors,
             executionOutput
         };
+        if (resultKey && cacheable) {
+            await gradingCache.setResult(resultKey, result);
+        }
+        return result;
 
     } catch (error) {
         console.error('Grading error:', error);
@@ -395,6 +461,53 @@ async function callExistingGrader(uploadDir, studentName, studentEmail) {
     }
 }
 
+// Error messages for runs stopped by one of the worker pool's limits
+const runLimitMessages = {
+    time: 'Execution timed out',
+    cpu: 'Execution exceeded its CPU time limit',
+    memory: 'Execution exceeded its memory allocation limit'
+};
+
+// Run PortfolioManager from uploadDir in a warm worker, or in a new JVM if the pool can't be used.
+// Resolves to { stdout, stderr } and rejects with error.stderr set on failure, like execAsync;
+// error.programFinished is true only when the program itself ran to an end (threw or exited)
+// rather than being stopped by a limit or never started.
+async function runSubmission(uploadDir, testInput, testInputPath) {
+    let result = null;
+    if (workerPool) {
+        try {
+            result = await workerPool.run(uploadDir, 'PortfolioManager', testInput);
+        } catch (error) {
+            console.log('⚠️ Worker pool unavailable, falling back to java:', error.message);
+        }
+    }
+    if (!result) {
+        return execAsync(`java -cp "${uploadDir}" PortfolioManager < "${testInputPath}"`, {
+            cwd: uploadDir,
+            timeout: 15000
+        }).catch(error => {
+            error.programFinished = processRan(error);
+            throw error;
+        });
+    }
+    if (result.exitCode !== 0) {
+        const error = new Error(result.limit ? runLimitMessages[result.limit] : `Program exited with code ${result.exitCode}`);
+        error.stdout = result.stdout;
+        error.stderr = result.stderr;
+        error.limit = result.limit;
+        error.programFinished = !result.limit;
+        throw error;
+    }
+    return { stdout: result.stdout, stderr: result.stderr };
+}
+
+// True if a failed execAsync command ran and exited on its own: not killed by the timeout or a
+// signal, and not a shell that couldn't find or start the command (exit codes 126 and 127)
+function processRan(error) {
+    return typeof error.code === 'number' && error.code !== 126 && error.code !== 127
+        && !error.killed && !error.signal;
+}
+
 // Analyze code structure based on detailed rubric
 function analyzeCodeStructure(transactionContent, portfolioContent, studentName) {
     const analysis = {